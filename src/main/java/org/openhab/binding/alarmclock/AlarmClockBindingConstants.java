@@ -36,6 +36,8 @@ public class AlarmClockBindingConstants {
     public final static String CHANNEL_OFFTIME = "offTime";
     public final static String CHANNEL_SUNRISE = "sunrise";
     public final static String CHANNEL_SUNSET = "sunset";
+    public final static String CHANNEL_AZIMUTH = "azimuth";
+    public final static String CHANNEL_ELEVATION = "elevation";
     public final static String CHANNEL_STATUS = "status";
     public final static String CHANNEL_TIMEOUT = "timeout";
     public final static String CHANNEL_ENABLED = "enabled";
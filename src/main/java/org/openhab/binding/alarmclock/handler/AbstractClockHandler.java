@@ -11,20 +11,27 @@ package org.openhab.binding.alarmclock.handler;
 import static org.openhab.binding.alarmclock.AlarmClockBindingConstants.*;
 import static org.openhab.binding.alarmclock.internal.Constants.*;
 
-import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 import org.eclipse.smarthome.config.core.Configuration;
 import org.eclipse.smarthome.core.library.types.OnOffType;
-import org.eclipse.smarthome.core.library.types.StringType;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.Thing;
+import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.RefreshType;
+import org.eclipse.smarthome.core.types.State;
 import org.openhab.binding.alarmclock.internal.ClockManager;
+import org.openhab.binding.alarmclock.internal.ClockSchedule;
 import org.openhab.binding.alarmclock.internal.ClockManager.Event;
 import org.openhab.binding.alarmclock.internal.CompactTime;
 import org.openhab.binding.alarmclock.internal.DayOfWeek;
+import org.openhab.binding.alarmclock.internal.StateCache;
+import org.openhab.binding.alarmclock.internal.StateJournal;
 import org.openhab.binding.alarmclock.internal.SystemHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,20 +44,23 @@ import org.slf4j.LoggerFactory;
  */
 public abstract class AbstractClockHandler extends BaseThingHandler {
 
-    // Time of switching on.
-    protected int onHour;
-    protected int onMinute;
+    // The on and off times, enabled flag, enabled days and status. Commands swap in a modified copy, the tick
+    // handlers read a single snapshot without locking.
+    private final AtomicReference<ClockSchedule> schedule = new AtomicReference<>(ClockSchedule.DEFAULT);
 
-    // Time of switching off.
-    protected int offHour;
-    protected int offMinute;
+    // Incremented by every initialization and by dispose, so a pending initialization of an earlier one is skipped.
+    private final Object initLock = new Object();
+    private int initGeneration;
 
-    // Enabled days of week.
-    private final EnumSet<DayOfWeek> daysOfWeek;
+    // The generation that completed its initialization, switch times are only registered while it is the current one.
+    // The on and off time registered with the clock manager, or -1 when none. Guarded by initLock.
+    private int readyGeneration = -1;
+    private int registeredOnTime = -1;
+    private int registeredOffTime = -1;
 
-    // Current status.
-    private boolean status;
-    private boolean enabled;
+    // The thing UID in the state journal, and true when the journal has state to restore.
+    private String journalKey;
+    private boolean restoreState;
 
     // Channel UIDs.
     protected final ChannelUID channelOnTime;
@@ -60,6 +70,9 @@ public abstract class AbstractClockHandler extends BaseThingHandler {
     protected final ChannelUID channelDayOfWeek;
     protected final ChannelUID channelDays;
 
+    // Last published state per channel id, to suppress updates that do not change anything.
+    private final Map<String, State> publishedStates = new ConcurrentHashMap<>();
+
     protected Logger logger = LoggerFactory.getLogger(AlarmClockHandler.class);
 
     /**
@@ -70,9 +83,6 @@ public abstract class AbstractClockHandler extends BaseThingHandler {
      */
     public AbstractClockHandler(Thing thing) {
         super(thing);
-        status = false;
-        enabled = true;
-        daysOfWeek = EnumSet.allOf(DayOfWeek.class);
         channelTime = new ChannelUID(getThing().getUID(), CHANNEL_TIME);
         channelOnTime = new ChannelUID(thing.getUID(), CHANNEL_ONTIME);
         channelOffTime = new ChannelUID(thing.getUID(), CHANNEL_OFFTIME);
@@ -83,17 +93,19 @@ public abstract class AbstractClockHandler extends BaseThingHandler {
 
     protected boolean handleBaseCommand(ChannelUID channelUID, Command command) {
         boolean result = false;
+        if (command instanceof RefreshType) {
+            // Make sure the refreshed channel is published, even when unchanged.
+            publishedStates.remove(channelUID.getId());
+        }
         if (command instanceof OnOffType) {
             result = true;
             OnOffType xcommand = (OnOffType) command;
             switch (channelUID.getId()) {
                 case CHANNEL_DAYENABLED:
                     DayOfWeek dow = ClockManager.getInstance().getLastTime().getDayOfWeek();
-                    if (xcommand.equals(OnOffType.ON)) {
-                        daysOfWeek.add(dow);
-                    } else {
-                        daysOfWeek.remove(dow);
-                    }
+                    boolean dayEnabled = xcommand.equals(OnOffType.ON);
+                    ClockSchedule changed = updateSchedule(s -> s.withDay(dow, dayEnabled));
+                    putJournalValue(StateJournal.FIELD_DAYS, changed.getDays());
                     refreshState();
                     break;
                 case CHANNEL_STATUS:
@@ -101,10 +113,9 @@ public abstract class AbstractClockHandler extends BaseThingHandler {
                     break;
                 case CHANNEL_ENABLED:
                     boolean newEnabled = xcommand.equals(OnOffType.ON);
-                    if (enabled != newEnabled ) {
-                        enabled = newEnabled;
-                        updateState(channelUID, xcommand);
-                    }
+                    changed = updateSchedule(s -> s.withEnabled(newEnabled));
+                    putJournalValue(StateJournal.FIELD_ENABLED, changed.isEnabled() ? 1 : 0);
+                    updateState(channelUID, changed.isEnabled() ? OnOffType.ON : OnOffType.OFF);
                     break;
                 default:
                     result = false;
@@ -113,10 +124,10 @@ public abstract class AbstractClockHandler extends BaseThingHandler {
         } else if (command instanceof Number || command instanceof RefreshType) {
             switch (channelUID.getId()) {
                 case CHANNEL_STATUS:
-                    updateState(channelUID, status ? OnOffType.ON : OnOffType.OFF);
+                    updateState(channelUID, getSchedule().getStatus() ? OnOffType.ON : OnOffType.OFF);
                     break;
                 case CHANNEL_ENABLED:
-                    updateState(channelUID, enabled ? OnOffType.ON : OnOffType.OFF);
+                    updateState(channelUID, isEnabled() ? OnOffType.ON : OnOffType.OFF);
                     break;
                 case CHANNEL_DAYENABLED:
                     updateState(channelUID, getDayEnabled());
@@ -131,13 +142,46 @@ public abstract class AbstractClockHandler extends BaseThingHandler {
         return result;
     }
 
+    /**
+     * Publish the state of a channel, but only when it differs from the state published before.
+     */
+    @Override
+    protected void updateState(ChannelUID channelUID, State state) {
+        State previous = publishedStates.put(channelUID.getId(), state);
+        if (state.equals(previous)) {
+            ClockManager.getInstance().recordSuppressedUpdate();
+        } else {
+            super.updateState(channelUID, state);
+        }
+    }
+
+    /**
+     * Get the current schedule snapshot.
+     *
+     * @return the schedule.
+     */
+    protected ClockSchedule getSchedule() {
+        return schedule.get();
+    }
+
+    /**
+     * Replace the schedule with a modified copy. The update may be applied more than once when commands race, so it
+     * must not have side effects.
+     *
+     * @param update the function returning the modified copy.
+     * @return the new schedule.
+     */
+    protected ClockSchedule updateSchedule(UnaryOperator<ClockSchedule> update) {
+        return schedule.updateAndGet(update);
+    }
+
     /**
      * Determine if the alarm is currently enabled.
      * 
      * @return true when enabled.
      */
     protected boolean isEnabled() {
-        return enabled;
+        return getSchedule().isEnabled();
     }
 
     /**
@@ -146,7 +190,18 @@ public abstract class AbstractClockHandler extends BaseThingHandler {
      * @return true if today is enabled.
      */
     protected boolean isDayEnabled() {
-        return daysOfWeek.contains(ClockManager.getInstance().getLastTime().getDayOfWeek());
+        return getSchedule().isDayEnabled(ClockManager.getInstance().getLastTime().getDayOfWeek());
+    }
+
+    /**
+     * Determine if the clock is enabled and enabled today in a single snapshot.
+     *
+     * @param packed the current packed time.
+     * @return true if the clock should switch.
+     */
+    private boolean isActive(int packed) {
+        ClockSchedule current = getSchedule();
+        return current.isEnabled() && current.isDayEnabled(CompactTime.of(packed).getDayOfWeek());
     }
 
     /**
@@ -165,6 +220,7 @@ public abstract class AbstractClockHandler extends BaseThingHandler {
     public void handleRemoval() {
         // Remove every trigger from the clock manager.
         ClockManager.getInstance().remove(this);
+        StateJournal.getInstance().remove(getThing().getUID().toString());
         super.handleRemoval();
     }
 
@@ -175,8 +231,7 @@ public abstract class AbstractClockHandler extends BaseThingHandler {
      */
     protected void switchStatus(OnOffType statusCommand) {
         boolean newStatus = statusCommand.equals(OnOffType.ON);
-        if (status != newStatus) {
-            status = newStatus;
+        if (schedule.getAndUpdate(s -> s.withStatus(newStatus)).getStatus() != newStatus) {
             updateState(new ChannelUID(getThing().getUID(), CHANNEL_STATUS), statusCommand);
             triggerChannel(new ChannelUID(thing.getUID(), CHANNEL_TRIGGERED), statusCommand.toString());
         }
@@ -188,35 +243,24 @@ public abstract class AbstractClockHandler extends BaseThingHandler {
     protected void initEventHandlers() {
         ClockManager clockManager = ClockManager.getInstance();
         
-        // Init the alarm state.
-        clockManager.once(Event.MINUTE_TICK, (previous, current) -> {
-            CompactTime onTime = new CompactTime(onHour, onMinute);
-            CompactTime offTime = new CompactTime(offHour, offMinute);
-            if (onTime.isLessThan(offTime)) {
-                switchStatus((onTime.isLessThan(current) && (current.isLessThanOrEqual(offTime))) ? OnOffType.ON : OnOffType.OFF);
-            } else {
-                switchStatus((offTime.isLessThan(current) && (current.isLessThanOrEqual(onTime))) ? OnOffType.OFF : OnOffType.ON);
-            }
-        }, this);
-
-        // Handle the minute tick by checking if a status change is needed.
-        clockManager.on(Event.MINUTE_TICK, (previous, current) -> {
-            if (isEnabled() && isDayEnabled()) {
+        // Handle the minute tick by refreshing the channels. Status changes are handled by the switch times.
+        clockManager.onTick(Event.MINUTE_TICK, (previous, current) -> {
+            if (isActive(current)) {
                 // The day is enabled and the alarm is enabled.
-                CompactTime onTime = new CompactTime(onHour, onMinute);
-                CompactTime offTime = new CompactTime(offHour, offMinute);
-                if (onTime.isSwitchTime(previous, current)) {
-                    switchStatus(OnOffType.ON);
-                }
-                if (offTime.isSwitchTime(previous, current)) {
-                    switchStatus(OnOffType.OFF);
-                }
                 refreshState();
-                updateState(channelTime, SystemHelper.formatTime(current.getHour(), current.getMinute()));
+                int minuteOfDay = CompactTime.minuteOfDay(current);
+                updateState(channelTime, SystemHelper.formatTime(minuteOfDay / 60, minuteOfDay % 60));
             }
 
         }, this);
 
+        // Register the switch times, so the clock manager calls this clock only when it needs to switch.
+        registerSwitchTimes();
+
+        // Init the alarm state from the current time, instead of waiting for the next minute tick. This is done after
+        // registering the switch times, so a switch time passing meanwhile can not be missed.
+        initStatus(CompactTime.minuteOfDay(CompactTime.currentPacked()));
+
         // Make sure the clock manager is started. Subsequent calls to this method has no effect.
         //clockManager.start(scheduler);
         
@@ -224,33 +268,140 @@ public abstract class AbstractClockHandler extends BaseThingHandler {
         refreshState();
     }
 
+    /**
+     * Set the status the clock should have at the given time, as if it switched at its last on or off time.
+     *
+     * @param now the minute of the day.
+     */
+    protected void initStatus(int now) {
+        switchStatus(getSchedule().isOnAt(now) ? OnOffType.ON : OnOffType.OFF);
+    }
+
+    /**
+     * Register the current on and off times with the clock manager. Call this method whenever these times may have
+     * changed. Nothing is done when they did not change, or when the handler is not initialized or disposed.
+     */
+    protected void updateSwitchTimes() {
+        synchronized (initLock) {
+            if (readyGeneration == initGeneration) {
+                registerSwitchTimes();
+            }
+        }
+    }
+
+    /**
+     * Replace the switch times registered with the clock manager when the on or off time changed. Must be called while
+     * holding the initLock.
+     */
+    private void registerSwitchTimes() {
+        ClockSchedule current = getSchedule();
+        if (current.getOnTime() == registeredOnTime && current.getOffTime() == registeredOffTime) {
+            return;
+        }
+        registeredOnTime = current.getOnTime();
+        registeredOffTime = current.getOffTime();
+        ClockManager.getInstance().replaceSwitchTimes(this, registeredOnTime, (previous, now) -> {
+            if (isActive(now)) {
+                switchStatus(OnOffType.ON);
+            }
+        }, registeredOffTime, (previous, now) -> {
+            if (isActive(now)) {
+                switchStatus(OnOffType.OFF);
+            }
+        });
+    }
+
     @Override
     public void initialize() {
 
         logger.debug("Initializing AbstractClock handler.");
         Configuration config = getThing().getConfiguration();
+
+        // Publish all states again after (re-)initialization.
+        publishedStates.clear();
         
         // First remove handlers that may exist (when changing settings).
         ClockManager clockManager = ClockManager.getInstance();
-        clockManager.init(scheduler);
+        clockManager.init();
         clockManager.remove(this);
 
-        // Configure days of week to enable the clock. The
-        // daysOfWeek is initialized with all days. By
+        // Configure days of week to enable the clock. By
         // default, all days are enabled.
-        daysOfWeek.addAll(EnumSet.allOf(DayOfWeek.class));
+        int days = ClockSchedule.ALL_DAYS;
         for (DayOfWeek dow : DayOfWeek.values()) {
             Object cfgParam = config.get(dow.getConfigKey());
             if (cfgParam != null && !(Boolean) cfgParam) {
-                daysOfWeek.remove(dow);
+                days &= ~(1 << dow.ordinal());
             }
         }
 
+        // Restore the state changed through channels before a restart, unless the configuration changed.
+        journalKey = getThing().getUID().toString();
+        restoreState = StateJournal.getInstance().open(journalKey, config.getProperties().hashCode());
+        boolean enabled = getJournalValue(StateJournal.FIELD_ENABLED, isEnabled() ? 1 : 0) != 0;
+        int restoredDays = (int) getJournalValue(StateJournal.FIELD_DAYS, days);
+        updateSchedule(s -> s.withEnabled(enabled).withDays(restoredDays));
+
         // 'Unset' properties to reinitialize
         getThing().setProperty(PROPERTY_LOCALE, "");
         getThing().setProperty(PROPERTY_TIMEZONE, "");
     }
 
+    /**
+     * Get a value restored from the state journal.
+     *
+     * @param field the field.
+     * @param defaultValue the value from the configuration.
+     * @return the restored value, or the default value when there is nothing to restore.
+     */
+    protected long getJournalValue(String field, long defaultValue) {
+        return restoreState ? StateJournal.getInstance().get(journalKey, field, defaultValue) : defaultValue;
+    }
+
+    /**
+     * Keep a value changed through a channel in the state journal, to restore it after a restart.
+     *
+     * @param field the field.
+     * @param value the value.
+     */
+    protected void putJournalValue(String field, long value) {
+        if (journalKey != null) {
+            StateJournal.getInstance().put(journalKey, field, value);
+        }
+    }
+
+    /**
+     * Set the status to UNKNOWN and let the clock manager complete the initialization asynchronously, in a batch with
+     * the other handlers initializing at the same time. Call this at the end of initialize.
+     */
+    protected void scheduleInitialization() {
+        int generation;
+        synchronized (initLock) {
+            generation = ++initGeneration;
+            registeredOnTime = -1;
+            registeredOffTime = -1;
+        }
+        updateStatus(ThingStatus.UNKNOWN);
+        ClockManager.getInstance().submitInitialization(() -> {
+            synchronized (initLock) {
+                if (generation == initGeneration) {
+                    completeInitialization();
+                    readyGeneration = generation;
+                }
+            }
+        });
+    }
+
+    /**
+     * Complete the initialization: update the properties, register with the clock manager and set the status to
+     * ONLINE. Runs asynchronously, after the system settings and the sun times are refreshed.
+     */
+    protected void completeInitialization() {
+        updateProperties();
+        initEventHandlers();
+        updateStatus(ThingStatus.ONLINE);
+    }
+
     @SuppressWarnings("null")
     protected void updateProperties() {
         // Set/update the things properties
@@ -282,13 +433,7 @@ public abstract class AbstractClockHandler extends BaseThingHandler {
      */
     protected void refreshState() {
         // Update days
-        StringBuilder b = new StringBuilder();
-        for (DayOfWeek dow : DayOfWeek.values()) {
-            if (daysOfWeek.contains(dow)) {
-                b.append(b.length() != 0 ? ", " : "").append(dow.getShortName());
-            }
-        }
-        updateState(channelDays, new StringType(b.toString()));
+        updateState(channelDays, StateCache.getDays(getSchedule().getDays()));
         updateState(channelDayEnabled, getDayEnabled());
     }
     
@@ -297,8 +442,10 @@ public abstract class AbstractClockHandler extends BaseThingHandler {
      */
     @Override
     public void dispose() {
-        //stopAutomaticRefresh();
-       // ClockManager.getInstance().dispose();
+        synchronized (initLock) {
+            initGeneration++;
+        }
+        ClockManager.getInstance().remove(this);
     }
 
 }
@@ -9,17 +9,28 @@
 package org.openhab.binding.alarmclock.handler;
 
 import static org.openhab.binding.alarmclock.AlarmClockBindingConstants.*;
-import static org.openhab.binding.alarmclock.internal.Constants.PROPERTY_LOCATION;
+import static org.openhab.binding.alarmclock.internal.Constants.*;
 
+import java.time.LocalDate;
+
+import org.eclipse.smarthome.config.core.Configuration;
 import org.eclipse.smarthome.core.library.types.PointType;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.types.Command;
 import org.openhab.binding.alarmclock.internal.ClockManager;
 import org.openhab.binding.alarmclock.internal.ClockManager.Event;
+import org.openhab.binding.alarmclock.internal.ClockSchedule;
+import org.openhab.binding.alarmclock.internal.StateCache;
+import org.openhab.binding.alarmclock.internal.SunEvent;
+import org.openhab.binding.alarmclock.internal.SunPosition;
+import org.openhab.binding.alarmclock.internal.SunSchedule;
+import org.openhab.binding.alarmclock.internal.SunTable;
+import org.openhab.binding.alarmclock.internal.SunTableCache;
 import org.openhab.binding.alarmclock.internal.SunriseSunset;
 import org.openhab.binding.alarmclock.internal.SystemHelper;
 import org.openhab.binding.alarmclock.internal.SystemSunClock;
+import org.openhab.binding.alarmclock.internal.TickListener;
 
 /**
  * This clock calculates the sunrise and sunset times based on the
@@ -33,11 +44,46 @@ public class AbstractSunClockHandler extends AbstractClockHandler {
     // Channel UIDs
     private final ChannelUID channelSunrise;
     private final ChannelUID channelSunset;
+    private final ChannelUID channelAzimuth;
+    private final ChannelUID channelElevation;
+
+    // The configured location, or null to use the system location.
+    private PointType location;
+
+    // The events to switch on and off at, null when switching at a fixed time.
+    private final SunEvent defaultOnEvent;
+    private final SunEvent defaultOffEvent;
+    private SunEvent onEvent;
+    private SunEvent offEvent;
+
+    // The solar elevation angle in degrees of the elevation events.
+    private double elevation;
+
+    // Today's sunrise and sunset at the location.
+    private int sunriseMinute = SunriseSunset.NO_EVENT;
+    private int sunsetMinute = SunriseSunset.NO_EVENT;
 
-    public AbstractSunClockHandler(Thing thing) {
+    // Today's position of the sun at the location.
+    private volatile SunPosition sunPosition;
+
+    // The version of the system sun schedule the times are derived from.
+    private volatile long scheduleVersion;
+
+    /**
+     * Create the handler.
+     *
+     * @param thing the thing.
+     * @param defaultOnEvent the event to switch on at when not configured, or null to switch on at a fixed time.
+     * @param defaultOffEvent the event to switch off at when not configured, or null to switch off at a fixed time.
+     */
+    public AbstractSunClockHandler(Thing thing, SunEvent defaultOnEvent, SunEvent defaultOffEvent) {
         super(thing);
+        this.defaultOnEvent = defaultOnEvent;
+        this.defaultOffEvent = defaultOffEvent;
         channelSunrise = new ChannelUID(thing.getUID(), CHANNEL_SUNRISE);
         channelSunset = new ChannelUID(thing.getUID(), CHANNEL_SUNSET);
+        channelAzimuth = new ChannelUID(thing.getUID(), CHANNEL_AZIMUTH);
+        channelElevation = new ChannelUID(thing.getUID(), CHANNEL_ELEVATION);
     }
 
     @Override
@@ -51,9 +97,62 @@ public class AbstractSunClockHandler extends AbstractClockHandler {
 
     /**
      * This method is called whenever an update is needed in settings related to sunrise/sunset times.
-     * @param sunriseSunset the Sunrise/sunset clock instance.
+     * @param onEventMinute the local minute of the day of the on event, or SunriseSunset.NO_EVENT.
+     * @param offEventMinute the local minute of the day of the off event, or SunriseSunset.NO_EVENT.
+     */
+    protected void updateTimeTriggers(int onEventMinute, int offEventMinute) {
+    }
+
+    /**
+     * Update the time triggers with today's sunrise and sunset, from the system sun clock or, when the thing has its
+     * own location, from the shared sun table cache.
+     */
+    protected void updateTimeTriggers() {
+        SunSchedule schedule = SystemSunClock.getInstance().getSchedule();
+        scheduleVersion = schedule.getVersion();
+        LocalDate today = LocalDate.ofEpochDay(schedule.getEpochDay());
+        SunTable sunTable = null;
+        if (location != null) {
+            sunTable = SunTableCache.getInstance().get(location.getLatitude().doubleValue(),
+                    location.getLongitude().doubleValue(), SystemHelper.getZoneId(), today.getYear());
+        }
+        int dayOfYear = today.getDayOfYear() - 1;
+        sunriseMinute = getEventMinute(SunEvent.SUNRISE, schedule, sunTable, dayOfYear);
+        sunPosition = location == null ? schedule.getPosition()
+                : SunPosition.fit(location.getLatitude().doubleValue(), location.getLongitude().doubleValue(),
+                        schedule.getEpochDay());
+        sunsetMinute = getEventMinute(SunEvent.SUNSET, schedule, sunTable, dayOfYear);
+
+        // The elevation events are not in the tables, solve both in one go when needed.
+        long elevationSolution = 0;
+        if ((onEvent != null && !onEvent.isFixed()) || (offEvent != null && !offEvent.isFixed())) {
+            PointType loc = location != null ? location : SystemHelper.getLocation();
+            elevationSolution = SunTable.solve(loc.getLatitude().doubleValue(), loc.getLongitude().doubleValue(),
+                    SystemHelper.getZoneId(), schedule.getEpochDay(), 90 - elevation);
+        }
+        updateTimeTriggers(getEventMinute(onEvent, schedule, sunTable, dayOfYear, elevationSolution),
+                getEventMinute(offEvent, schedule, sunTable, dayOfYear, elevationSolution));
+    }
+
+    /**
+     * Get the minute of a fixed event, from the system schedule or the table of the thing location.
      */
-    protected void updateTimeTriggers(SunriseSunset sunriseSunset) {
+    private int getEventMinute(SunEvent event, SunSchedule schedule, SunTable sunTable, int dayOfYear) {
+        return sunTable != null ? sunTable.getMinute(event, dayOfYear) : schedule.getMinute(event);
+    }
+
+    /**
+     * Get the minute of an event, taking the elevation events from the solution for the configured elevation.
+     */
+    private int getEventMinute(SunEvent event, SunSchedule schedule, SunTable sunTable, int dayOfYear,
+            long elevationSolution) {
+        if (event == null) {
+            return SunriseSunset.NO_EVENT;
+        } else if (!event.isFixed()) {
+            return event.isRising() ? SunriseSunset.getSunrise(elevationSolution)
+                    : SunriseSunset.getSunset(elevationSolution);
+        }
+        return getEventMinute(event, schedule, sunTable, dayOfYear);
     }
     
     /**
@@ -61,14 +160,30 @@ public class AbstractSunClockHandler extends AbstractClockHandler {
      */
     protected void initEventHandlers() {
         ClockManager clockManager = ClockManager.getInstance();
-        clockManager.on(Event.SIX_HOUR_TICK, (previous, current) -> {
-            SystemSunClock sunClock = SystemSunClock.getInstance();
-            sunClock.reCalculate();
-            updateTimeTriggers(sunClock.getSunriseSunset());
-        }, this);
+        // The clock manager recalculates the schedule after midnight and after a time zone or location change, only
+        // update when it changed.
+        TickListener sunListener = (previous, current) -> {
+            if (SystemSunClock.getInstance().getSchedule().getVersion() != scheduleVersion) {
+                updateTimeTriggers();
+                updateSwitchTimes();
+            }
+        };
+        clockManager.onTick(Event.DAY_TICK, sunListener, this);
+        clockManager.onTick(Event.SETTINGS_CHANGE, sunListener, this);
+        // The position of the sun changes every minute, also when the clock is disabled.
+        clockManager.onTick(Event.MINUTE_TICK, (previous, current) -> updatePosition(), this);
         super.initEventHandlers();
     }
     
+    /**
+     * Take the sun times from the shared schedule or table before registering the switch times.
+     */
+    @Override
+    protected void completeInitialization() {
+        updateTimeTriggers();
+        super.completeInitialization();
+    }
+
     /**
      * Update values and properties.
      */
@@ -77,11 +192,10 @@ public class AbstractSunClockHandler extends AbstractClockHandler {
     protected void updateProperties() {
         super.updateProperties();
         Thing thing = getThing();
-        PointType newLoc = SystemHelper.getLocation();
+        PointType newLoc = location != null ? location : SystemHelper.getLocation();
         String currentLoc = thing.getProperties().get(PROPERTY_LOCATION);
         if (currentLoc == null || !currentLoc.equals(newLoc.toString())) {
             thing.setProperty(PROPERTY_LOCATION, newLoc.toString());
-            SystemSunClock.getInstance().reCalculate();
             refreshState();
         }
     }
@@ -89,6 +203,20 @@ public class AbstractSunClockHandler extends AbstractClockHandler {
     @Override
     public void initialize() {
         super.initialize();
+        Configuration config = getThing().getConfiguration();
+        Object configLocation = config.get(CONFIG_LOCATION);
+        location = null;
+        if (configLocation != null && !configLocation.toString().trim().isEmpty()) {
+            try {
+                location = new PointType(configLocation.toString().trim());
+            } catch (IllegalArgumentException ex) {
+                logger.warn("Invalid location '{}', using the system location.", configLocation);
+            }
+        }
+        onEvent = defaultOnEvent == null ? null : SunEvent.fromConfig(config.get(CONFIG_ON_EVENT), defaultOnEvent);
+        offEvent = defaultOffEvent == null ? null : SunEvent.fromConfig(config.get(CONFIG_OFF_EVENT), defaultOffEvent);
+        Object configElevation = config.get(CONFIG_ELEVATION);
+        elevation = configElevation instanceof Number ? ((Number) configElevation).doubleValue() : 0;
         // Make sure location is reininitialized
         getThing().setProperty(PROPERTY_LOCATION, "");
     }
@@ -99,10 +227,24 @@ public class AbstractSunClockHandler extends AbstractClockHandler {
     @Override
     protected void refreshState() {
         super.refreshState();
-        updateState(channelOnTime, SystemHelper.formatTime(onHour, onMinute));
-        updateState(channelOffTime, SystemHelper.formatTime(offHour, offMinute));
-        updateState(channelSunrise, SystemSunClock.getInstance().getSunrise());
-        updateState(channelSunset, SystemSunClock.getInstance().getSunset());
+        ClockSchedule schedule = getSchedule();
+        updateState(channelOnTime, SystemHelper.formatTime(schedule.getOnHour(), schedule.getOnMinute()));
+        updateState(channelOffTime, SystemHelper.formatTime(schedule.getOffHour(), schedule.getOffMinute()));
+        updateState(channelSunrise, StateCache.getEventTime(sunriseMinute));
+        updateState(channelSunset, StateCache.getEventTime(sunsetMinute));
+        updatePosition();
+    }
+
+    /**
+     * Publish the current azimuth and elevation of the sun, rounded to 0.1 degree.
+     */
+    private void updatePosition() {
+        SunPosition position = sunPosition;
+        if (position != null) {
+            long now = System.currentTimeMillis();
+            updateState(channelAzimuth, StateCache.getDegrees(position.getAzimuth(now)));
+            updateState(channelElevation, StateCache.getDegrees(position.getElevation(now)));
+        }
     }
 
 }
@@ -18,9 +18,11 @@ import org.eclipse.smarthome.core.library.types.IncreaseDecreaseType;
 import org.eclipse.smarthome.core.library.types.UpDownType;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.Thing;
-import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.RefreshType;
+import org.openhab.binding.alarmclock.internal.ClockSchedule;
+import org.openhab.binding.alarmclock.internal.StateCache;
+import org.openhab.binding.alarmclock.internal.StateJournal;
 import org.openhab.binding.alarmclock.internal.SystemHelper;
 
 /**
@@ -81,28 +83,30 @@ public class AlarmClockHandler extends AbstractClockHandler {
         if (super.handleBaseCommand(channelUID, command)) {
             return;
         }
-        Number x = null;
         if (command instanceof Number || command instanceof RefreshType || command instanceof IncreaseDecreaseType
                 || command instanceof UpDownType) {
-            if (!(command instanceof RefreshType)) {
-                x = decodeCommand(command);
-            }
+            Number x = command instanceof RefreshType ? null : decodeCommand(command);
+            ClockSchedule schedule;
             switch (channelUID.getId()) {
                 case CHANNEL_ONHOUR:
-                    onHour = getNewValue(onHour, x, 23);
-                    updateState(channelUID, new DecimalType(onHour));
+                    schedule = updateSchedule(
+                            s -> s.withOnTime(getNewValue(s.getOnHour(), x, 23), s.getOnMinute()));
+                    updateState(channelUID, StateCache.getDecimal(schedule.getOnHour()));
                     break;
                 case CHANNEL_ONMINUTE:
-                    onMinute = getNewValue(onMinute, x, 59);
-                    updateState(channelUID, new DecimalType(onMinute));
+                    schedule = updateSchedule(
+                            s -> s.withOnTime(s.getOnHour(), getNewValue(s.getOnMinute(), x, 59)));
+                    updateState(channelUID, StateCache.getDecimal(schedule.getOnMinute()));
                     break;
                 case CHANNEL_OFFHOUR:
-                    offHour = getNewValue(offHour, x, 23);
-                    updateState(channelUID, new DecimalType(offHour));
+                    schedule = updateSchedule(
+                            s -> s.withOffTime(getNewValue(s.getOffHour(), x, 23), s.getOffMinute()));
+                    updateState(channelUID, StateCache.getDecimal(schedule.getOffHour()));
                     break;
                 case CHANNEL_OFFMINUTE:
-                    offMinute = getNewValue(offMinute, x, 59);
-                    updateState(channelUID, new DecimalType(offMinute));
+                    schedule = updateSchedule(
+                            s -> s.withOffTime(s.getOffHour(), getNewValue(s.getOffMinute(), x, 59)));
+                    updateState(channelUID, StateCache.getDecimal(schedule.getOffMinute()));
                     break;
                 case CHANNEL_DAYENABLED:
                     updateState(channelUID, getDayEnabled());
@@ -111,6 +115,12 @@ public class AlarmClockHandler extends AbstractClockHandler {
                     logger.debug("Command received for an unknown channel: {}", channelUID.getId());
                     break;
             }
+            if (x != null) {
+                schedule = getSchedule();
+                putJournalValue(StateJournal.FIELD_ON_TIME, schedule.getOnTime());
+                putJournalValue(StateJournal.FIELD_OFF_TIME, schedule.getOffTime());
+            }
+            updateSwitchTimes();
             refreshState();
         } else {
             logger.debug("Command {} is not supported for channel: {}", command, channelUID.getId());
@@ -123,8 +133,9 @@ public class AlarmClockHandler extends AbstractClockHandler {
     @Override
     protected void refreshState() {
         super.refreshState();
-        updateState(channelOnTime, SystemHelper.formatTime(onHour, onMinute));
-        updateState(channelOffTime, SystemHelper.formatTime(offHour, offMinute));
+        ClockSchedule schedule = getSchedule();
+        updateState(channelOnTime, SystemHelper.formatTime(schedule.getOnHour(), schedule.getOnMinute()));
+        updateState(channelOffTime, SystemHelper.formatTime(schedule.getOffHour(), schedule.getOffMinute()));
     }
 
     @Override
@@ -134,22 +145,15 @@ public class AlarmClockHandler extends AbstractClockHandler {
 
         Configuration config = getThing().getConfiguration();
 
-        onHour = ((BigDecimal) config.get("onHour")).intValue();
-        onMinute = ((BigDecimal) config.get("onMinute")).intValue();
-        offHour = ((BigDecimal) config.get("offHour")).intValue();
-        offMinute = ((BigDecimal) config.get("offMinute")).intValue();
-
-        // TODO: Initialize the thing. If done set status to ONLINE to indicate proper working.
-        // Long running initialization should be done asynchronously in background.
-        updateStatus(ThingStatus.ONLINE);
-        updateProperties();
+        int onHour = ((BigDecimal) config.get("onHour")).intValue();
+        int onMinute = ((BigDecimal) config.get("onMinute")).intValue();
+        int offHour = ((BigDecimal) config.get("offHour")).intValue();
+        int offMinute = ((BigDecimal) config.get("offMinute")).intValue();
+        int onTime = (int) getJournalValue(StateJournal.FIELD_ON_TIME, onHour * 60 + onMinute);
+        int offTime = (int) getJournalValue(StateJournal.FIELD_OFF_TIME, offHour * 60 + offMinute);
+        updateSchedule(s -> s.withOnTime(onTime).withOffTime(offTime));
 
-        // Note: When initialization can NOT be done set the status with more details for further
-        // analysis. See also class ThingStatusDetail for all available status details.
-        // Add a description to give user information to understand why thing does not work
-        // as expected. E.g.
-        // updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
-        // "Can not access device as username and/or password are invalid");
-        initEventHandlers();
+        // Complete the initialization asynchronously, the status is UNKNOWN until then.
+        scheduleInitialization();
     }
 }
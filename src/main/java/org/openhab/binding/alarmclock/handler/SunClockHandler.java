@@ -10,14 +10,11 @@ package org.openhab.binding.alarmclock.handler;
 
 import java.math.BigDecimal;
 import java.time.Instant;
-import java.util.Calendar;
-import java.util.Date;
 
 import org.eclipse.smarthome.config.core.Configuration;
 import org.eclipse.smarthome.core.thing.Thing;
-import org.eclipse.smarthome.core.thing.ThingStatus;
+import org.openhab.binding.alarmclock.internal.SunEvent;
 import org.openhab.binding.alarmclock.internal.SunriseSunset;
-import org.openhab.binding.alarmclock.internal.SystemSunClock;
 
 /**
  * This clock calculates the sunrise and sunset times based on the
@@ -32,27 +29,20 @@ public class SunClockHandler extends AbstractSunClockHandler {
     private int offOffset;
 
     public SunClockHandler(Thing thing) {
-        super(thing);
+        super(thing, SunEvent.SUNSET, SunEvent.SUNRISE);
     }
 
     /**
      * Update the sunrise/sunset times.
      */
     @Override
-    protected void updateTimeTriggers(SunriseSunset sunriseSunset) {
-        Date sunrise = sunriseSunset.getSunrise();
-
-        Calendar calendar = Calendar.getInstance(); // creates a new calendar instance
-        calendar.setTime(sunrise); // assigns calendar to given date
-        calendar.add(Calendar.MINUTE, offOffset);
-        offHour = calendar.get(Calendar.HOUR_OF_DAY); // gets hour in 24h format
-        offMinute = calendar.get(Calendar.MINUTE);
-
-        Date sunset = sunriseSunset.getSunset();
-        calendar.setTime(sunset); // assigns calendar to given date
-        calendar.add(Calendar.MINUTE, onOffset);
-        onHour = calendar.get(Calendar.HOUR_OF_DAY); // gets hour in 24h format
-        onMinute = calendar.get(Calendar.MINUTE);
+    protected void updateTimeTriggers(int onEventMinute, int offEventMinute) {
+        if (offEventMinute != SunriseSunset.NO_EVENT) {
+            updateSchedule(s -> s.withOffTime(offEventMinute + offOffset));
+        }
+        if (onEventMinute != SunriseSunset.NO_EVENT) {
+            updateSchedule(s -> s.withOnTime(onEventMinute + onOffset));
+        }
     }
 
     @Override
@@ -65,21 +55,8 @@ public class SunClockHandler extends AbstractSunClockHandler {
         onOffset = ((BigDecimal) config.get("onOffset")).intValue();
         offOffset = ((BigDecimal) config.get("offOffset")).intValue();
 
-        // TODO: Initialize the thing. If done set status to ONLINE to indicate proper working.
-        // Long running initialization should be done asynchronously in background.
-        updateStatus(ThingStatus.ONLINE);
-        updateProperties();
-        updateTimeTriggers(SystemSunClock.getInstance().getSunriseSunset()) ;
-
-        // Note: When initialization can NOT be done set the status with more details for further
-        // analysis. See also class ThingStatusDetail for all available status details.
-        // Add a description to give user information to understand why thing does not work
-        // as expected. E.g.
-        // updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
-        // "Can not access device as username and/or password are invalid");
-        //startAutomaticRefresh();
-        initEventHandlers();
-
+        // Complete the initialization asynchronously, the status is UNKNOWN until then.
+        scheduleInitialization();
     }
 
 }
@@ -9,14 +9,11 @@
 package org.openhab.binding.alarmclock.handler;
 
 import java.math.BigDecimal;
-import java.util.Calendar;
-import java.util.Date;
 
 import org.eclipse.smarthome.config.core.Configuration;
 import org.eclipse.smarthome.core.thing.Thing;
-import org.eclipse.smarthome.core.thing.ThingStatus;
+import org.openhab.binding.alarmclock.internal.SunEvent;
 import org.openhab.binding.alarmclock.internal.SunriseSunset;
-import org.openhab.binding.alarmclock.internal.SystemSunClock;
 
 /**
  * This clock calculates the sunrise and sunset times based on the
@@ -30,21 +27,17 @@ public class SunsetClockHandler extends AbstractSunClockHandler {
     private int onOffset;
 
     public SunsetClockHandler(Thing thing) {
-        super(thing);
+        super(thing, SunEvent.SUNSET, null);
     }
 
     /**
      * Update the sunrise/sunset times.
      */
     @Override
-    protected void updateTimeTriggers(SunriseSunset sunriseSunset) {
-        Date sunset = sunriseSunset.getSunset();
-
-        Calendar calendar = Calendar.getInstance(); // creates a new calendar instance
-        calendar.setTime(sunset); // assigns calendar to given date
-        calendar.add(Calendar.MINUTE, onOffset);
-        onHour = calendar.get(Calendar.HOUR_OF_DAY); // gets hour in 24h format
-        onMinute = calendar.get(Calendar.MINUTE);
+    protected void updateTimeTriggers(int onEventMinute, int offEventMinute) {
+        if (onEventMinute != SunriseSunset.NO_EVENT) {
+            updateSchedule(s -> s.withOnTime(onEventMinute + onOffset));
+        }
     }
 
     @Override
@@ -54,25 +47,13 @@ public class SunsetClockHandler extends AbstractSunClockHandler {
 
         Configuration config = getThing().getConfiguration();
 
-        offHour = ((BigDecimal) config.get("offHour")).intValue();
-        offMinute = ((BigDecimal) config.get("offMinute")).intValue();
+        int offHour = ((BigDecimal) config.get("offHour")).intValue();
+        int offMinute = ((BigDecimal) config.get("offMinute")).intValue();
+        updateSchedule(s -> s.withOffTime(offHour, offMinute));
         onOffset = ((BigDecimal) config.get("onOffset")).intValue();
 
-        // TODO: Initialize the thing. If done set status to ONLINE to indicate proper working.
-        // Long running initialization should be done asynchronously in background.
-        updateStatus(ThingStatus.ONLINE);
-        updateProperties();
-        updateTimeTriggers(SystemSunClock.getInstance().getSunriseSunset()) ;
-
-        // Note: When initialization can NOT be done set the status with more details for further
-        // analysis. See also class ThingStatusDetail for all available status details.
-        // Add a description to give user information to understand why thing does not work
-        // as expected. E.g.
-        // updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
-        // "Can not access device as username and/or password are invalid");
-        //startAutomaticRefresh();
-        initEventHandlers();
-
+        // Complete the initialization asynchronously, the status is UNKNOWN until then.
+        scheduleInitialization();
     }
 
 }
@@ -9,8 +9,10 @@
 package org.openhab.binding.alarmclock.handler;
 
 import static org.openhab.binding.alarmclock.AlarmClockBindingConstants.*;
+import static org.openhab.binding.alarmclock.internal.Constants.*;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -23,6 +25,12 @@ import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.RefreshType;
+import org.openhab.binding.alarmclock.internal.ClockManager;
+import org.openhab.binding.alarmclock.internal.PublishMode;
+import org.openhab.binding.alarmclock.internal.StateCache;
+import org.openhab.binding.alarmclock.internal.StateJournal;
+import org.openhab.binding.alarmclock.internal.TimerWheel;
+import org.openhab.binding.alarmclock.internal.TimerWheel.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,55 +38,135 @@ import org.slf4j.LoggerFactory;
  * The {@link TimerHandler} is responsible for handling commands, which are
  * sent to one of the channels.
  *
+ * The timeout runs as a single one-shot job at the deadline, measured with the monotonic clock. The countdown is only
+ * published at the seconds the publish mode asks for, from the shared timer wheel.
+ *
  * @author Wim Vissers - Initial contribution
  */
 public class TimerHandler extends BaseThingHandler {
 
-    // Last trigger time or 0 if never triggered
-    private long lastTriggerMillis;
+    // The deadline of the running timer in System.nanoTime
+    private long deadlineNanos;
 
     // Parameters
-    private int maxSeconds;
+    private long durationMillis;
+    private PublishMode publishMode;
+    private int publishInterval;
 
     // Current status
     private OnOffType status;
     private OnOffType timeout;
     private int lastSeconds;
 
-    // Scheduler
-    ScheduledFuture<?> refreshJob;
+    // Pending refresh in the shared timer wheel
+    private Timeout refreshTimeout;
+
+    // Pending timeout job
+    private ScheduledFuture<?> deadlineJob;
+
+    // The thing UID in the state journal
+    private String journalKey;
+
+    // Channel UIDs
+    private final ChannelUID channelCurrentSeconds;
+    private final ChannelUID channelStatus;
+    private final ChannelUID channelTimeout;
+    private final ChannelUID channelTriggered;
 
     private Logger logger = LoggerFactory.getLogger(TimerHandler.class);
 
     public TimerHandler(Thing thing) {
         super(thing);
+        channelCurrentSeconds = new ChannelUID(thing.getUID(), CHANNEL_CURRENTSECONDS);
+        channelStatus = new ChannelUID(thing.getUID(), CHANNEL_STATUS);
+        channelTimeout = new ChannelUID(thing.getUID(), CHANNEL_TIMEOUT);
+        channelTriggered = new ChannelUID(thing.getUID(), CHANNEL_TRIGGERED);
+        publishMode = PublishMode.INTERVAL;
+        publishInterval = 1;
         status = OnOffType.OFF;
         timeout = OnOffType.OFF;
         lastSeconds = 0;
     }
 
+    /**
+     * Get the remaining whole seconds, rounded up, so the countdown shows 0 only at the deadline.
+     *
+     * @return the remaining seconds, or 0 when the timer is not running.
+     */
     private int getCurrentSeconds() {
         if (status.equals(OnOffType.OFF)) {
             return 0;
         } else {
-            return (int) (maxSeconds - ((System.currentTimeMillis() - lastTriggerMillis) / 1000));
+            long remainingNanos = Math.max(0, deadlineNanos - System.nanoTime());
+            return (int) ((remainingNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+        }
+    }
+
+    /**
+     * Get the state of the duration in seconds, with millisecond precision.
+     *
+     * @return the state.
+     */
+    private DecimalType getMaxSeconds() {
+        if (durationMillis % 1000 == 0) {
+            return StateCache.getDecimal(durationMillis / 1000);
+        }
+        return new DecimalType(BigDecimal.valueOf(durationMillis, 3).stripTrailingZeros());
+    }
+
+    /**
+     * Convert a number of seconds to the duration in milliseconds.
+     *
+     * @param seconds the seconds, may have a fraction.
+     * @return the duration, at least 1 millisecond.
+     */
+    private static long toDurationMillis(Number seconds) {
+        BigDecimal value = seconds instanceof BigDecimal ? (BigDecimal) seconds
+                : new BigDecimal(seconds.toString());
+        return Math.max(1, value.movePointRight(3).setScale(0, RoundingMode.HALF_UP).longValue());
+    }
+
+    /**
+     * Keep a value in the state journal, to restore it after a restart.
+     *
+     * @param field the field.
+     * @param value the value.
+     */
+    private void putJournalValue(String field, long value) {
+        if (journalKey != null) {
+            StateJournal.getInstance().put(journalKey, field, value);
         }
     }
 
-    private void startTimer() {
-        lastTriggerMillis = System.currentTimeMillis();
+    private synchronized void startTimer() {
+        startTimer(durationMillis);
+    }
+
+    /**
+     * Start the timer with the given remaining time, and keep the deadline in the state journal.
+     *
+     * @param remainingMillis the remaining time, expires immediately when not positive.
+     */
+    private synchronized void startTimer(long remainingMillis) {
+        stopAutomaticRefresh();
         status = OnOffType.ON;
         timeout = OnOffType.OFF;
+        long remaining = Math.max(0, remainingMillis);
+        deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(remaining);
+        deadlineJob = ClockManager.getInstance().scheduleTask(this::expire, deadlineNanos - System.nanoTime(),
+                TimeUnit.NANOSECONDS);
+        putJournalValue(StateJournal.FIELD_DEADLINE, System.currentTimeMillis() + remaining);
         lastSeconds = getCurrentSeconds();
-        updateState(new ChannelUID(thing.getUID(), CHANNEL_CURRENTSECONDS), new DecimalType(lastSeconds));
-        updateState(new ChannelUID(thing.getUID(), CHANNEL_TIMEOUT), timeout);
-        startAutomaticRefresh();
+        updateState(channelCurrentSeconds, StateCache.getDecimal(lastSeconds));
+        updateState(channelTimeout, timeout);
+        scheduleRefresh();
     }
 
-    private void stopTimer() {
+    private synchronized void stopTimer() {
+        putJournalValue(StateJournal.FIELD_DEADLINE, 0);
         status = OnOffType.OFF;
         lastSeconds = getCurrentSeconds();
-        updateState(new ChannelUID(thing.getUID(), CHANNEL_CURRENTSECONDS), new DecimalType(lastSeconds));
+        updateState(channelCurrentSeconds, StateCache.getDecimal(lastSeconds));
         stopAutomaticRefresh();
     }
 
@@ -92,12 +180,13 @@ public class TimerHandler extends BaseThingHandler {
             switch (channelUID.getId()) {
                 case CHANNEL_MAXSECONDS:
                     if (x != null) {
-                        maxSeconds = x.intValue();
+                        durationMillis = toDurationMillis(x);
+                        putJournalValue(StateJournal.FIELD_DURATION, durationMillis);
                     }
-                    updateState(channelUID, new DecimalType(maxSeconds));
+                    updateState(channelUID, getMaxSeconds());
                     break;
                 case CHANNEL_CURRENTSECONDS:
-                    updateState(channelUID, new DecimalType(getCurrentSeconds()));
+                    updateState(channelUID, StateCache.getDecimal(getCurrentSeconds()));
                     break;
                 case CHANNEL_STATUS:
                     updateState(channelUID, status);
@@ -112,7 +201,7 @@ public class TimerHandler extends BaseThingHandler {
         } else if (command instanceof OnOffType && channelUID.getId().equals(CHANNEL_STATUS)) {
             if (!((OnOffType) command).equals(status)) {
                 if (((OnOffType) command).equals(OnOffType.ON)) {
-                    triggerChannel(new ChannelUID(thing.getUID(), CHANNEL_TRIGGERED), OnOffType.ON.toString());
+                    triggerChannel(channelTriggered, OnOffType.ON.toString());
                     startTimer();
                 } else {
                     stopTimer();
@@ -130,12 +219,28 @@ public class TimerHandler extends BaseThingHandler {
 
         Configuration config = getThing().getConfiguration();
 
-        maxSeconds = ((BigDecimal) config.get("maxSeconds")).intValue();
+        durationMillis = toDurationMillis((BigDecimal) config.get("maxSeconds"));
+        publishMode = PublishMode.fromConfig(config.get(CONFIG_PUBLISH_MODE), PublishMode.INTERVAL);
+        Object interval = config.get(CONFIG_PUBLISH_INTERVAL);
+        publishInterval = interval instanceof Number ? Math.max(1, ((Number) interval).intValue()) : 1;
 
         // TODO: Initialize the thing. If done set status to ONLINE to indicate proper working.
         // Long running initialization should be done asynchronously in background.
         updateStatus(ThingStatus.ONLINE);
 
+        // Restore the duration and a running timer from before a restart, unless the configuration changed. A
+        // timer that expired meanwhile times out now.
+        StateJournal journal = StateJournal.getInstance();
+        journalKey = getThing().getUID().toString();
+        if (journal.open(journalKey, config.getProperties().hashCode())) {
+            durationMillis = journal.get(journalKey, StateJournal.FIELD_DURATION, durationMillis);
+            long deadline = journal.get(journalKey, StateJournal.FIELD_DEADLINE, 0);
+            if (deadline != 0) {
+                startTimer(deadline - System.currentTimeMillis());
+                updateState(channelStatus, status);
+            }
+        }
+
         // Note: When initialization can NOT be done set the status with more details for further
         // analysis. See also class ThingStatusDetail for all available status details.
         // Add a description to give user information to understand why thing does not work
@@ -145,59 +250,89 @@ public class TimerHandler extends BaseThingHandler {
     }
 
     /**
-     * Check on and off times with current time. If the status
-     * changed from on to off or vice versa, return true.
-     *
-     * @return
+     * Publish the countdown when the remaining seconds changed.
      */
-    private boolean updateAlarmStatus() {
-        boolean result = false;
-        if (lastSeconds != 0 && lastSeconds != getCurrentSeconds()) {
-            lastSeconds = getCurrentSeconds();
-            updateState(new ChannelUID(thing.getUID(), CHANNEL_CURRENTSECONDS), new DecimalType(lastSeconds));
-            if (lastSeconds <= 0) {
-                timeout = OnOffType.ON;
-                updateState(new ChannelUID(thing.getUID(), CHANNEL_TIMEOUT), timeout);
-                triggerChannel(new ChannelUID(thing.getUID(), CHANNEL_TRIGGERED), OnOffType.OFF.toString());
-                stopTimer();
-                result = true;
+    private void updateCountdown() {
+        int seconds = getCurrentSeconds();
+        if (lastSeconds != 0 && lastSeconds != seconds) {
+            lastSeconds = seconds;
+            updateState(channelCurrentSeconds, StateCache.getDecimal(lastSeconds));
+        }
+    }
+
+    /**
+     * Schedule the next refresh at the next second the publish mode publishes at, aligned with the deadline. The
+     * timeout itself is handled by the deadline job.
+     */
+    private void scheduleRefresh() {
+        int seconds = getCurrentSeconds();
+        int next = seconds > 0 ? publishMode.next(seconds, publishInterval) : 0;
+        if (next > 0) {
+            long delay = deadlineNanos - next * NANOS_PER_SECOND - System.nanoTime();
+            refreshTimeout = TimerWheel.getInstance().newTimeout(this::refresh, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Publish the countdown and schedule the next refresh while the timer is running.
+     */
+    private synchronized void refresh() {
+        refreshTimeout = null;
+        if (status.equals(OnOffType.ON)) {
+            try {
+                updateCountdown();
+            } catch (Exception e) {
+                logger.debug("Exception occurred during execution: {}", e.getMessage(), e);
             }
+            scheduleRefresh();
         }
-        return result;
     }
 
     /**
-     * Check every 60 seconds if one of the alarm times is reached.
+     * Switch off at the deadline and trigger the timeout.
      */
-    private void startAutomaticRefresh() {
-        Runnable runnable = new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    if (updateAlarmStatus()) {
-                        updateState(new ChannelUID(getThing().getUID(), CHANNEL_STATUS), status);
-                    }
-                } catch (Exception e) {
-                    logger.debug("Exception occurred during execution: {}", e.getMessage(), e);
-                }
+    private synchronized void expire() {
+        deadlineJob = null;
+        if (status.equals(OnOffType.ON)) {
+            try {
+                lastSeconds = 0;
+                updateState(channelCurrentSeconds, StateCache.getDecimal(0));
+                timeout = OnOffType.ON;
+                updateState(channelTimeout, timeout);
+                triggerChannel(channelTriggered, OnOffType.OFF.toString());
+                stopTimer();
+                updateState(channelStatus, status);
+            } catch (Exception e) {
+                logger.debug("Exception occurred during execution: {}", e.getMessage(), e);
             }
-        };
-        refreshJob = scheduler.scheduleAtFixedRate(runnable, 0, 1, TimeUnit.SECONDS);
+        }
     }
 
     private void stopAutomaticRefresh() {
-        if (refreshJob != null) {
-            refreshJob.cancel(true);
+        if (refreshTimeout != null) {
+            refreshTimeout.cancel();
+            refreshTimeout = null;
+        }
+        if (deadlineJob != null) {
+            deadlineJob.cancel(false);
+            deadlineJob = null;
         }
     }
 
     /**
-     * Dispose off the refreshJob nicely.
+     * Remove the state of the timer from the state journal.
      */
     @Override
-    public void dispose() {
-        if (refreshJob != null) {
-            refreshJob.cancel(true);
-        }
+    public void handleRemoval() {
+        StateJournal.getInstance().remove(getThing().getUID().toString());
+        super.handleRemoval();
+    }
+
+    /**
+     * Dispose off the refreshTimeout and deadline job nicely.
+     */
+    @Override
+    public synchronized void dispose() {
+        stopAutomaticRefresh();
     }
 }
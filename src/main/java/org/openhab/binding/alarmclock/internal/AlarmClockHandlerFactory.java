@@ -8,10 +8,16 @@
  */
 package org.openhab.binding.alarmclock.internal;
 
+import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Set;
 
 import static org.openhab.binding.alarmclock.AlarmClockBindingConstants.*;
+import static org.openhab.binding.alarmclock.internal.Constants.*;
+
+import org.eclipse.smarthome.core.i18n.LocaleProvider;
+import org.eclipse.smarthome.core.i18n.LocationProvider;
+import org.eclipse.smarthome.core.i18n.TimeZoneProvider;
 import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandlerFactory;
@@ -22,6 +28,8 @@ import org.openhab.binding.alarmclock.handler.SunriseClockHandler;
 import org.openhab.binding.alarmclock.handler.SunsetClockHandler;
 import org.openhab.binding.alarmclock.handler.TimerHandler;
 import org.osgi.service.component.ComponentContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * The {@link AlarmClockHandlerFactory} is responsible for creating things and thing
@@ -33,6 +41,8 @@ public class AlarmClockHandlerFactory extends BaseThingHandlerFactory {
 
     private final Set<ThingTypeUID> SUPPORTED_THING_TYPES_UIDS;
 
+    private final Logger logger = LoggerFactory.getLogger(AlarmClockHandlerFactory.class);
+
     public AlarmClockHandlerFactory() {
         SUPPORTED_THING_TYPES_UIDS = new HashSet<>();
         SUPPORTED_THING_TYPES_UIDS.add(THING_TYPE_ALARM);
@@ -55,20 +65,77 @@ public class AlarmClockHandlerFactory extends BaseThingHandlerFactory {
         super.activate(componentContext);
         // Create the ClockManager, but delay initialization until the first ThingHandler is initialized,
         // because otherwise startup will not succeed, since the system localization service is not availabe.
-        ClockManager.getInstance();
+        ClockManager clockManager = ClockManager.getInstance();
+        Object mode = componentContext.getProperties().get(CONFIG_SCHEDULING_MODE);
+        if (mode != null) {
+            try {
+                clockManager.setMode(ClockManager.Mode.valueOf(mode.toString()));
+            } catch (IllegalArgumentException ex) {
+                logger.warn("Unknown scheduling mode {}, using {}.", mode, ClockManager.Mode.MINUTE);
+                clockManager.setMode(ClockManager.Mode.MINUTE);
+            }
+        }
+        clockManager.configureScheduler(
+                getIntProperty(componentContext, CONFIG_SCHEDULER_THREADS, DEFAULT_SCHEDULER_THREADS),
+                getIntProperty(componentContext, CONFIG_SCHEDULER_PRIORITY, DEFAULT_SCHEDULER_PRIORITY));
     }
-    
+
+    /**
+     * Get an integer binding configuration parameter.
+     *
+     * @param componentContext the component context.
+     * @param name the parameter name.
+     * @param defaultValue the value to return when the parameter is missing or invalid.
+     * @return the value.
+     */
+    private int getIntProperty(ComponentContext componentContext, String name, int defaultValue) {
+        Object value = componentContext.getProperties().get(name);
+        if (value != null) {
+            try {
+                return new BigDecimal(value.toString().trim()).intValue();
+            } catch (NumberFormatException ex) {
+                logger.warn("Invalid value {} for {}, using {}.", value, name, defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
     /**
      * Deactivate the binding.
      */
     @Override
     public void deactivate(ComponentContext componentContext) {
         ClockManager.getInstance().stop();
+        TimerWheel.getInstance().stop();
+        StateJournal.getInstance().stop();
         super.deactivate(componentContext);
     }
 
-    
-    
+
+    protected void setLocaleProvider(LocaleProvider localeProvider) {
+        SystemHelper.setLocaleProvider(localeProvider);
+    }
+
+    protected void unsetLocaleProvider(LocaleProvider localeProvider) {
+        SystemHelper.unsetLocaleProvider(localeProvider);
+    }
+
+    protected void setLocationProvider(LocationProvider locationProvider) {
+        SystemHelper.setLocationProvider(locationProvider);
+    }
+
+    protected void unsetLocationProvider(LocationProvider locationProvider) {
+        SystemHelper.unsetLocationProvider(locationProvider);
+    }
+
+    protected void setTimeZoneProvider(TimeZoneProvider timeZoneProvider) {
+        SystemHelper.setTimeZoneProvider(timeZoneProvider);
+    }
+
+    protected void unsetTimeZoneProvider(TimeZoneProvider timeZoneProvider) {
+        SystemHelper.unsetTimeZoneProvider(timeZoneProvider);
+    }
+
     @Override
     protected ThingHandler createHandler(Thing thing) {
 
@@ -8,10 +8,23 @@
  */
 package org.openhab.binding.alarmclock.internal;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +33,19 @@ import org.slf4j.LoggerFactory;
  * The singleton ClockManager service is used to control the several instances of ClockHandler (sub) classes. It is in a
  * separate class to be able to have lightweight AlarmClock things.
  *
+ * The main task is not polling at a fixed rate, but is rescheduled after every run to wake up exactly at the next
+ * boundary that needs it. In {@link Mode#MINUTE} that is every minute boundary, in {@link Mode#DEADLINE} it is the
+ * earliest registered switch time or the next hour boundary, whichever comes first.
+ *
+ * Switch times are indexed by minute of the day, so a tick only visits the clocks that switch within the time frame
+ * since the previous tick.
+ *
+ * Handlers registered as {@link TickListener} are called with packed times directly.
+ *
+ * The ClockManager runs on its own small scheduler instead of the scheduler shared by all thing handlers, so a busy
+ * binding elsewhere can not delay the switching of a clock. Every run records how late it started and how many tasks
+ * were queued. A late run is logged as a warning, and a summary is logged every hour.
+ *
  * @author Wim Vissers
  *
  */
@@ -30,77 +56,504 @@ public class ClockManager extends EventEmitter<ClockManager.Event, CompactTime,
     // The logger instance.
     private final Logger logger = LoggerFactory.getLogger(ClockManager.class);
 
+    // The scheduler used to run the main task, created when needed. Guarded by this.
+    private ScheduledThreadPoolExecutor scheduler;
+
+    // The number and priority of the scheduler threads. Guarded by this.
+    private int threadCount = DEFAULT_SCHEDULER_THREADS;
+    private int threadPriority = DEFAULT_SCHEDULER_PRIORITY;
+
+    // The scheduler statistics since the last report. Guarded by this.
+    private int runCount;
+    private int lateCount;
+    private long maxLatenessMillis;
+    private int maxQueueDepth;
+
+    // The number of state updates the handlers did not publish because the state did not change, since the last report.
+    private final AtomicLong suppressedUpdates = new AtomicLong();
+
     // The task.
     private ScheduledFuture<?> mainTask;
 
+    // Held while the main task runs, so a run scheduled while another one is active waits for it and never emits the
+    // same tick twice. Never acquired while holding this.
+    private final Object runLock = new Object();
+
+    // The time (epoch millis) the main task is scheduled to run next.
+    private long nextRunMillis;
+
+    // The scheduling mode.
+    private Mode mode = Mode.MINUTE;
+
+    // The switch triggers of all registered clocks, indexed by minute of the day.
+    private final List<SwitchTrigger>[] switchTriggers;
+
+    // The switch triggers by key, used when removing things.
+    private final Map<Object, List<SwitchTrigger>> switchTriggersByKey = new HashMap<>();
+
+    // The upcoming switch times of all registered clocks, earliest first.
+    private final PriorityQueue<SwitchTrigger> deadlines = new PriorityQueue<>();
+
     // The last CompactTime.
-    private CompactTime lastTime;
+    private volatile CompactTime lastTime;
+
+    // The asynchronous initializations waiting for a batch, and true when a batch is scheduled.
+    private final Queue<Runnable> initTasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean initScheduled = new AtomicBoolean();
+
+    // The number of batches running, the main task is rescheduled once after them. Guarded by this.
+    private int batchCount;
+
+    // Called by the SystemHelper after the time zone or location changed.
+    private final Runnable settingsListener = this::settingsChanged;
 
     /**
      * Singleton, so private constructor.
      */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
     private ClockManager() {
+        super(Event.class);
+        switchTriggers = new List[MINUTES_PER_DAY];
+        for (int i = 0; i < MINUTES_PER_DAY; i++) {
+            switchTriggers[i] = new CopyOnWriteArrayList<>();
+        }
+    }
+
+    /**
+     * Set the number and priority of the scheduler threads. When the scheduler is already running, it is replaced.
+     *
+     * @param threads the number of threads, at least 1.
+     * @param priority the thread priority, see {@link Thread#setPriority(int)}.
+     */
+    public void configureScheduler(int threads, int priority) {
+        threads = Math.max(1, threads);
+        priority = Math.max(Thread.MIN_PRIORITY, Math.min(Thread.MAX_PRIORITY, priority));
+        synchronized (this) {
+            if (threadCount != threads || threadPriority != priority) {
+                logger.debug("Scheduler changed to {} threads with priority {}.", threads, priority);
+                threadCount = threads;
+                threadPriority = priority;
+                if (scheduler != null) {
+                    ScheduledThreadPoolExecutor previous = scheduler;
+                    scheduler = null;
+                    if (mainTask != null) {
+                        schedule(nextRunMillis);
+                    }
+                    previous.shutdown();
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the scheduler, creating it when needed. Must be called while holding the lock.
+     *
+     * @return the scheduler.
+     */
+    private ScheduledThreadPoolExecutor getScheduler() {
+        if (scheduler == null) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            int priority = threadPriority;
+            scheduler = new ScheduledThreadPoolExecutor(threadCount, runnable -> {
+                Thread thread = new Thread(runnable, "alarmclock-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(priority);
+                return thread;
+            });
+            // The main task is rescheduled often, do not keep the cancelled runs in the queue.
+            scheduler.setRemoveOnCancelPolicy(true);
+        }
+        return scheduler;
+    }
+
+    /**
+     * Run a task once on the scheduler of the ClockManager after a delay, e.g. a timeout that should not be delayed
+     * by other bindings.
+     *
+     * @param task the task.
+     * @param delay the delay.
+     * @param unit the unit of the delay.
+     * @return the future, to cancel the task.
+     */
+    public synchronized ScheduledFuture<?> scheduleTask(Runnable task, long delay, TimeUnit unit) {
+        return getScheduler().schedule(task, delay, unit);
     }
- 
+
     /**
      * Start processing (when not already running).
      */
-    public void init(ScheduledExecutorService scheduler) {
+    public void init() {
         synchronized (this) {
             if (mainTask == null) {
-                lastTime = new CompactTime();
-                
-                // Refresh the locale.
-                on(Event.MINUTE_TICK, (previous, current) -> {
-                    DayOfWeek.setLocale(SystemHelper.getLocale());
+                lastTime = CompactTime.now();
+
+                // Handlers of an earlier run, before stop.
+                remove(this);
+
+                // Refresh the system settings.
+                onTick(Event.MINUTE_TICK, (previous, current) -> {
+                    SystemHelper.refresh();
                 }, this);
-                
-                // Refresh the sunrise/sunset times.
-                on(Event.HOUR_TICK, (previous, current) -> {
-                    
+
+                // Refresh the sunrise/sunset times once for all handlers, before they are notified.
+                onTick(Event.DAY_TICK, (previous, current) -> {
+                    SystemSunClock.getInstance().reCalculate();
                 }, this);
-                mainTask = scheduler.scheduleAtFixedRate(new Runnable() {
-                    @Override
-                    public void run() {
-                        logger.debug("Executing Main Task");
-                        // Get current time
-                        CompactTime now = new CompactTime();
-
-                        try {
-                            // Emit events when applicable
-                            if (lastTime.getMinute() != now.getMinute()) {
-                                logger.debug("Minute tick");
-                                emit(Event.MINUTE_TICK, lastTime, now);
-                            }
-                            if (lastTime.getHour() != now.getHour()) {
-                                logger.debug("Hour tick");
-                                emit(Event.HOUR_TICK, lastTime, now);
-                                if (lastTime.getHour() % 6 == 0) {
-                                    logger.debug("Six hour tick");
-                                    emit(Event.SIX_HOUR_TICK, lastTime, now);
-                                }
-                            }
-                            if (lastTime.getDayOfWeek() != now.getDayOfWeek()) {
-                                logger.debug("Day tick");
-                                emit(Event.DAY_TICK, lastTime, now);
-                            }
-
-                            // Store last time
-                            lastTime = now;
-                        } catch (Exception ex) {
-                            logger.error("Error executing main task.", ex);
-                        }
+                SystemHelper.addChangeListener(settingsListener);
+                schedule(0);
+            }
+        }
+    }
+
+    /**
+     * Run the asynchronous part of the initialization of a handler. The tasks submitted while a batch is waiting
+     * run together, in parallel, after the system settings and the sun times are refreshed once for all of them. In
+     * {@link Mode#DEADLINE} the main task is rescheduled once per batch instead of for every switch time registered.
+     * The batches run on the common fork join pool, so a slow batch does not delay the ticks and timeouts.
+     *
+     * @param task the task.
+     */
+    public void submitInitialization(Runnable task) {
+        initTasks.add(task);
+        if (initScheduled.compareAndSet(false, true)) {
+            ForkJoinPool.commonPool().execute(this::runInitializations);
+        }
+    }
+
+    /**
+     * Run the waiting initialization tasks as one batch.
+     */
+    private void runInitializations() {
+        initScheduled.set(false);
+        List<Runnable> batch = new ArrayList<>();
+        for (Runnable task = initTasks.poll(); task != null; task = initTasks.poll()) {
+            batch.add(task);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        SystemHelper.refresh();
+        SystemSunClock.getInstance().reCalculate();
+        synchronized (this) {
+            batchCount++;
+        }
+        try {
+            batch.parallelStream().forEach(task -> {
+                try {
+                    task.run();
+                } catch (Exception ex) {
+                    logger.error("Error initializing handler.", ex);
+                }
+            });
+        } finally {
+            synchronized (this) {
+                if (--batchCount == 0 && mainTask != null && mode == Mode.DEADLINE && !deadlines.isEmpty()
+                        && deadlines.peek().millis < nextRunMillis) {
+                    schedule(deadlines.peek().millis);
+                }
+            }
+        }
+        logger.debug("Initialized {} handlers in {} ms.", batch.size(), (System.nanoTime() - start) / 1000000);
+    }
+
+    /**
+     * Execute the main task: emit the tick events that apply since the last run and schedule the next run.
+     *
+     * @param dueMillis the time in epoch millis the run was scheduled for.
+     */
+    private void run(long dueMillis) {
+        logger.debug("Executing Main Task");
+        recordRun(System.currentTimeMillis() - dueMillis);
+        synchronized (runLock) {
+            runLocked();
+        }
+    }
+
+    /**
+     * Execute the main task while holding the run lock.
+     */
+    private void runLocked() {
+        // Get current time
+        CompactTime now = CompactTime.now();
+
+        try {
+            // Emit events when applicable
+            if (lastTime.getMinute() != now.getMinute() || lastTime.getHour() != now.getHour()) {
+                logger.debug("Minute tick");
+                emitSwitchTimes(lastTime.getPacked(), now.getPacked());
+                emit(Event.MINUTE_TICK, lastTime, now);
+            }
+            if (lastTime.getHour() != now.getHour()) {
+                logger.debug("Hour tick");
+                emit(Event.HOUR_TICK, lastTime, now);
+                reportStatistics();
+                if (lastTime.getHour() % 6 == 0) {
+                    logger.debug("Six hour tick");
+                    emit(Event.SIX_HOUR_TICK, lastTime, now);
+                }
+            }
+            if (lastTime.getDayOfWeek() != now.getDayOfWeek()) {
+                logger.debug("Day tick");
+                emit(Event.DAY_TICK, lastTime, now);
+            }
+
+            // Store last time
+            lastTime = now;
+        } catch (Exception ex) {
+            logger.error("Error executing main task.", ex);
+        }
+
+        synchronized (this) {
+            if (mainTask != null) {
+                long currentMillis = System.currentTimeMillis();
+
+                // Move the deadlines that passed to their next occurrence.
+                while (!deadlines.isEmpty() && deadlines.peek().millis <= currentMillis) {
+                    SwitchTrigger passed = deadlines.poll();
+                    passed.millis = CompactTime.nextOccurrence(passed.minuteOfDay, currentMillis);
+                    deadlines.add(passed);
+                }
+                schedule(getNextWakeup(currentMillis));
+            }
+        }
+    }
+
+    /**
+     * Record a state update a handler did not publish because the state did not change.
+     */
+    public void recordSuppressedUpdate() {
+        suppressedUpdates.incrementAndGet();
+    }
+
+    /**
+     * Record how late a run started and how many tasks were waiting, and warn when it was too late.
+     *
+     * @param latenessMillis the time the run started after it was due.
+     */
+    private void recordRun(long latenessMillis) {
+        int queueDepth;
+        synchronized (this) {
+            if (scheduler == null) {
+                return;
+            }
+            queueDepth = scheduler.getQueue().size();
+            runCount++;
+            maxLatenessMillis = Math.max(maxLatenessMillis, latenessMillis);
+            maxQueueDepth = Math.max(maxQueueDepth, queueDepth);
+            if (latenessMillis < SCHEDULER_LATE_MILLIS) {
+                return;
+            }
+            lateCount++;
+        }
+        logger.warn("Clock tick started {} ms late with {} tasks queued.", latenessMillis, queueDepth);
+    }
+
+    /**
+     * Log the scheduler statistics since the last report and reset them, and log the sun table cache statistics.
+     */
+    private void reportStatistics() {
+        synchronized (this) {
+            logger.debug("Scheduler ran {} times, {} late, at most {} ms late with at most {} tasks queued.", runCount,
+                    lateCount, maxLatenessMillis, maxQueueDepth);
+            runCount = 0;
+            lateCount = 0;
+            maxLatenessMillis = 0;
+            maxQueueDepth = 0;
+        }
+        SunTableCache cache = SunTableCache.getInstance();
+        logger.debug("Sun table cache holds {} tables, {} hits, {} misses, {} evictions.", cache.getSize(),
+                cache.getHits(), cache.getMisses(), cache.getEvictions());
+        logger.debug("Suppressed {} unchanged state updates.", suppressedUpdates.getAndSet(0));
+    }
+
+    /**
+     * Call the switch triggers of the minutes within the time frame (previous, current]. The time frame may cross
+     * midnight, but only when the day changed. When the clock steps back on the same day, e.g. at the end of daylight
+     * saving time, no switch triggers are called.
+     *
+     * @param previous the previous packed time.
+     * @param current the current packed time.
+     */
+    private void emitSwitchTimes(int previous, int current) {
+        int from = CompactTime.minuteOfDay(previous);
+        int to = CompactTime.minuteOfDay(current);
+        if (to < from && previous / MINUTES_PER_DAY == current / MINUTES_PER_DAY) {
+            return;
+        }
+        // Collect the triggers while holding the lock, so switch times replaced meanwhile are seen either before or
+        // after the change, and call them without holding it.
+        List<SwitchTrigger> due = null;
+        synchronized (this) {
+            for (int minute = (from + 1) % MINUTES_PER_DAY; minute != (to + 1) % MINUTES_PER_DAY; minute = (minute
+                    + 1) % MINUTES_PER_DAY) {
+                if (!switchTriggers[minute].isEmpty()) {
+                    if (due == null) {
+                        due = new ArrayList<>();
                     }
-                }, 0, TIME_RESOLUTION_SECONDS, TimeUnit.SECONDS);
+                    due.addAll(switchTriggers[minute]);
+                }
+            }
+        }
+        if (due != null) {
+            for (SwitchTrigger trigger : due) {
+                trigger.listener.onTick(previous, current);
+            }
+        }
+    }
+
+    /**
+     * Call a handler with the payload, directly with the packed times for a {@link TickListener}.
+     */
+    @Override
+    protected void accept(BiConsumer<CompactTime, CompactTime> callback, CompactTime previous, CompactTime current) {
+        if (callback instanceof TickListener) {
+            ((TickListener) callback).onTick(previous.getPacked(), current.getPacked());
+        } else {
+            callback.accept(previous, current);
+        }
+    }
+
+    /**
+     * Add a tick listener for the given event. Give key as a unique object, used to be able to remove certain
+     * handlers.
+     *
+     * @param event the event to trigger on.
+     * @param listener the listener to call with the previous and current packed time.
+     * @param key a reference to typically the sender, used when removing things.
+     * @return this ClockManager to enable chaining.
+     */
+    public ClockManager onTick(Event event, TickListener listener, Object key) {
+        onHandler(event, listener, key, false);
+        return this;
+    }
+
+    /**
+     * Determine when the main task needs to run next, depending on the scheduling mode.
+     *
+     * @param currentMillis the current time in epoch millis.
+     * @return the next wakeup time in epoch millis.
+     */
+    private long getNextWakeup(long currentMillis) {
+        if (mode == Mode.MINUTE) {
+            return CompactTime.nextBoundary(currentMillis, MILLIS_PER_MINUTE);
+        }
+        long nextHour = CompactTime.nextBoundary(currentMillis, MILLIS_PER_HOUR);
+        return deadlines.isEmpty() ? nextHour : Math.min(nextHour, deadlines.peek().millis);
+    }
+
+    /**
+     * Schedule the main task to run at the given time. Must be called while holding the lock.
+     *
+     * @param wakeupMillis the time in epoch millis, or 0 to run immediately.
+     */
+    private void schedule(long wakeupMillis) {
+        if (mainTask != null) {
+            mainTask.cancel(false);
+        }
+        long currentMillis = System.currentTimeMillis();
+        long delay = wakeupMillis == 0 ? 0 : Math.max(0, wakeupMillis - currentMillis + SCHEDULING_SLACK_MILLIS);
+        long dueMillis = currentMillis + delay;
+        nextRunMillis = wakeupMillis;
+        mainTask = getScheduler().schedule(() -> run(dueMillis), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Add a handler that is called when the given minute of the day is reached. In {@link Mode#DEADLINE} the main task
+     * will wake up at the earliest switch time of all clocks.
+     *
+     * @param minuteOfDay the switch time as minute of the day (hour * 60 + minute), values outside the day wrap around.
+     * @param listener the listener to call with the previous and current packed time.
+     * @param key a reference to typically the sender, used when removing things.
+     * @return this ClockManager to enable chaining.
+     */
+    public ClockManager onSwitchTime(int minuteOfDay, TickListener listener, Object key) {
+        minuteOfDay = Math.floorMod(minuteOfDay, MINUTES_PER_DAY);
+        synchronized (this) {
+            SwitchTrigger trigger = new SwitchTrigger(key, minuteOfDay, listener);
+            trigger.millis = CompactTime.nextOccurrence(minuteOfDay, System.currentTimeMillis());
+            switchTriggers[minuteOfDay].add(trigger);
+            switchTriggersByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(trigger);
+            deadlines.add(trigger);
+
+            // Wake up earlier when the new switch time precedes the planned run, after the batch when initializing.
+            if (batchCount == 0 && mainTask != null && mode == Mode.DEADLINE && trigger.millis < nextRunMillis) {
+                schedule(trigger.millis);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Replace all switch time handlers of the given key with an on and an off time in one step, so a tick sees either
+     * the old or the new switch times, never none.
+     *
+     * @param key a reference to typically the sender, used when removing things.
+     * @param onMinuteOfDay the on time as minute of the day.
+     * @param onListener the listener to call at the on time.
+     * @param offMinuteOfDay the off time as minute of the day.
+     * @param offListener the listener to call at the off time.
+     */
+    public void replaceSwitchTimes(Object key, int onMinuteOfDay, TickListener onListener, int offMinuteOfDay,
+            TickListener offListener) {
+        synchronized (this) {
+            removeSwitchTimes(key);
+            onSwitchTime(onMinuteOfDay, onListener, key);
+            onSwitchTime(offMinuteOfDay, offListener, key);
+        }
+    }
+
+    /**
+     * Remove all switch time handlers with the given key, e.g. before registering changed switch times.
+     *
+     * @param key the key given when registering, typically the sender.
+     */
+    public void removeSwitchTimes(Object key) {
+        synchronized (this) {
+            List<SwitchTrigger> triggers = switchTriggersByKey.remove(key);
+            if (triggers != null) {
+                for (SwitchTrigger trigger : triggers) {
+                    switchTriggers[trigger.minuteOfDay].remove(trigger);
+                    deadlines.remove(trigger);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove all triggers and switch times with one of the given keys.
+     *
+     * @param keys the keys given when registering, typically the senders.
+     */
+    @Override
+    public void removeAll(Collection<?> keys) {
+        super.removeAll(keys);
+        for (Object key : keys) {
+            removeSwitchTimes(key);
+        }
+    }
+
+    /**
+     * Set the scheduling mode. When already running, the next run is rescheduled accordingly.
+     *
+     * @param mode the new scheduling mode.
+     */
+    public void setMode(Mode mode) {
+        synchronized (this) {
+            if (this.mode != mode) {
+                logger.debug("Scheduling mode changed to {}.", mode);
+                this.mode = mode;
+                if (mainTask != null) {
+                    schedule(getNextWakeup(System.currentTimeMillis()));
+                }
             }
         }
     }
 
     /**
-     * Get the last time the main task run loop was executed. With a resolution of TIME_RESOLUTION_SECONDS this could be
-     * considered the
+     * Get the last time the main task run loop was executed. In {@link Mode#MINUTE} this could be considered the
      * current time.
-     * 
+     *
      * @return
      */
     public CompactTime getLastTime() {
@@ -108,7 +561,7 @@ public class ClockManager extends EventEmitter<ClockManager.Event, CompactTime,
     }
 
     /**
-     * Stop running.
+     * Stop running. The tasks scheduled with scheduleTask, like timer timeouts, still run on time.
      */
     public void stop() {
         synchronized (this) {
@@ -116,6 +569,22 @@ public class ClockManager extends EventEmitter<ClockManager.Event, CompactTime,
                 mainTask.cancel(true);
                 mainTask = null;
             }
+            if (scheduler != null) {
+                scheduler.shutdown();
+                scheduler = null;
+            }
+            SystemHelper.removeChangeListener(settingsListener);
+        }
+    }
+
+    /**
+     * Recalculate the sunrise/sunset times after the time zone or location changed, and notify the handlers.
+     */
+    private void settingsChanged() {
+        SystemSunClock.getInstance().reCalculate();
+        CompactTime time = lastTime;
+        if (time != null) {
+            emit(Event.SETTINGS_CHANGE, time, time);
         }
     }
 
@@ -133,6 +602,43 @@ public class ClockManager extends EventEmitter<ClockManager.Event, CompactTime,
         MINUTE_TICK,
         HOUR_TICK,
         SIX_HOUR_TICK,
-        DAY_TICK
+        DAY_TICK,
+        SETTINGS_CHANGE
+    }
+
+    /**
+     * The scheduling mode of the main task.
+     */
+    public enum Mode {
+        // Wake up at every minute boundary.
+        MINUTE,
+        // Wake up only at the earliest switch time and at hour boundaries.
+        DEADLINE
+    }
+
+    /**
+     * A switch time handler of a clock, ordered by the moment it occurs next.
+     *
+     * @author Wim Vissers.
+     *
+     */
+    private static class SwitchTrigger implements Comparable<SwitchTrigger> {
+        private final Object key;
+        private final int minuteOfDay;
+        private final TickListener listener;
+
+        // The next occurrence in epoch millis. Only changed while not in the deadline queue.
+        private long millis;
+
+        public SwitchTrigger(Object key, int minuteOfDay, TickListener listener) {
+            this.key = key;
+            this.minuteOfDay = minuteOfDay;
+            this.listener = listener;
+        }
+
+        @Override
+        public int compareTo(SwitchTrigger other) {
+            return Long.compare(millis, other.millis);
+        }
     }
 }
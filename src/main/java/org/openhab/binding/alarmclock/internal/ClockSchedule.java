@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.alarmclock.internal;
+
+/**
+ * Immutable snapshot of the settings and status of a clock: the on and off times, the enabled flag, the enabled days
+ * and the current status. A clock handler keeps it in an atomic reference, commands replace it with a modified copy,
+ * and the tick handlers read one consistent snapshot without locking.
+ *
+ * @author Wim Vissers - Initial contribution
+ */
+public final class ClockSchedule implements Constants {
+
+    // All days of the week enabled.
+    public static final int ALL_DAYS = (1 << 7) - 1;
+
+    // Enabled on all days, switching on and off at midnight, status off.
+    public static final ClockSchedule DEFAULT = new ClockSchedule(0, 0, true, ALL_DAYS, false);
+
+    private final int onTime;
+    private final int offTime;
+    private final boolean enabled;
+    private final int days;
+    private final boolean status;
+
+    private ClockSchedule(int onTime, int offTime, boolean enabled, int days, boolean status) {
+        this.onTime = onTime;
+        this.offTime = offTime;
+        this.enabled = enabled;
+        this.days = days;
+        this.status = status;
+    }
+
+    /**
+     * Get the time of switching on.
+     *
+     * @return the minute of the day.
+     */
+    public int getOnTime() {
+        return onTime;
+    }
+
+    public int getOnHour() {
+        return onTime / 60;
+    }
+
+    public int getOnMinute() {
+        return onTime % 60;
+    }
+
+    /**
+     * Get the time of switching off.
+     *
+     * @return the minute of the day.
+     */
+    public int getOffTime() {
+        return offTime;
+    }
+
+    public int getOffHour() {
+        return offTime / 60;
+    }
+
+    public int getOffMinute() {
+        return offTime % 60;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the enabled days.
+     *
+     * @return the bit mask of the enabled days, by ordinal.
+     */
+    public int getDays() {
+        return days;
+    }
+
+    /**
+     * Return true if the clock is enabled on the given day.
+     *
+     * @param dayOfWeek the day, may be null.
+     * @return true if enabled, false for null.
+     */
+    public boolean isDayEnabled(DayOfWeek dayOfWeek) {
+        return dayOfWeek != null && (days & 1 << dayOfWeek.ordinal()) != 0;
+    }
+
+    public boolean getStatus() {
+        return status;
+    }
+
+    /**
+     * Return true if the clock is on at the given time, as if it switched at its last on or off time.
+     *
+     * @param minuteOfDay the minute of the day.
+     * @return true when on.
+     */
+    public boolean isOnAt(int minuteOfDay) {
+        if (onTime < offTime) {
+            return onTime < minuteOfDay && minuteOfDay <= offTime;
+        } else {
+            return !(offTime < minuteOfDay && minuteOfDay <= onTime);
+        }
+    }
+
+    /**
+     * Get a copy with a different on time.
+     *
+     * @param minuteOfDay the minute of the day, wraps around.
+     * @return the copy, or this when unchanged.
+     */
+    public ClockSchedule withOnTime(int minuteOfDay) {
+        int time = Math.floorMod(minuteOfDay, MINUTES_PER_DAY);
+        return time == onTime ? this : new ClockSchedule(time, offTime, enabled, days, status);
+    }
+
+    public ClockSchedule withOnTime(int hour, int minute) {
+        return withOnTime(hour * 60 + minute);
+    }
+
+    /**
+     * Get a copy with a different off time.
+     *
+     * @param minuteOfDay the minute of the day, wraps around.
+     * @return the copy, or this when unchanged.
+     */
+    public ClockSchedule withOffTime(int minuteOfDay) {
+        int time = Math.floorMod(minuteOfDay, MINUTES_PER_DAY);
+        return time == offTime ? this : new ClockSchedule(onTime, time, enabled, days, status);
+    }
+
+    public ClockSchedule withOffTime(int hour, int minute) {
+        return withOffTime(hour * 60 + minute);
+    }
+
+    public ClockSchedule withEnabled(boolean enabled) {
+        return enabled == this.enabled ? this : new ClockSchedule(onTime, offTime, enabled, days, status);
+    }
+
+    /**
+     * Get a copy with different enabled days.
+     *
+     * @param days the bit mask of the enabled days, by ordinal.
+     * @return the copy, or this when unchanged.
+     */
+    public ClockSchedule withDays(int days) {
+        int mask = days & ALL_DAYS;
+        return mask == this.days ? this : new ClockSchedule(onTime, offTime, enabled, mask, status);
+    }
+
+    /**
+     * Get a copy with a day enabled or disabled.
+     *
+     * @param dayOfWeek the day.
+     * @param dayEnabled true to enable.
+     * @return the copy, or this when unchanged.
+     */
+    public ClockSchedule withDay(DayOfWeek dayOfWeek, boolean dayEnabled) {
+        int bit = 1 << dayOfWeek.ordinal();
+        return withDays(dayEnabled ? days | bit : days & ~bit);
+    }
+
+    public ClockSchedule withStatus(boolean status) {
+        return status == this.status ? this : new ClockSchedule(onTime, offTime, enabled, days, status);
+    }
+}
@@ -9,94 +9,312 @@
 package org.openhab.binding.alarmclock.internal;
 
 import java.time.Instant;
-import java.time.ZonedDateTime;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
 
 /**
  * Object to encapsulate a compact local time hours/minutes/dayofweek.
  *
+ * The time is packed in a single int: day of week ordinal * 1440 + minute of the day. Times without a day of week
+ * use day number 7. All possible instances are created in advance, so obtaining an instance never allocates. The
+ * static methods work on the packed values directly.
+ *
  * @author Wim Vissers.
  *
  */
-public class CompactTime {
+public final class CompactTime implements Constants {
+
+    // Day number used for times without a day of week.
+    private static final int NO_DAY = 7;
+
+    // All instances, indexed by packed value: 10080 weekly instants followed by 1440 times without a day of week.
+    private static final CompactTime[] INSTANCES = new CompactTime[(NO_DAY + 1) * MINUTES_PER_DAY];
+
+    private static final DayOfWeek[] DAYS = DayOfWeek.values();
+
+    // 1970-01-01 was a Thursday.
+    private static final int EPOCH_DAY_OF_WEEK = DayOfWeek.THURSDAY.ordinal();
+
+    // The zone offset valid for a range of time, replaced when the time zone changes or a transition passes.
+    private static volatile OffsetRange offsetRange;
+
+    static {
+        for (int packed = 0; packed < INSTANCES.length; packed++) {
+            INSTANCES[packed] = new CompactTime(packed);
+        }
+    }
 
-    private final int hour;
-    private final int minute;
-    private final DayOfWeek dayOfWeek;
+    private final int packed;
 
     /**
-     * Create a local CompactTime from the system.
+     * Only the static initializer creates instances.
+     *
+     * @param packed the packed time.
      */
-    public CompactTime() {
-        ZonedDateTime now = Instant.now().atZone(SystemHelper.getTimeZone().toZoneId());
-        dayOfWeek = DayOfWeek.valueOf(now.getDayOfWeek().name());
-        hour = now.getHour();
-        minute = now.getMinute();
+    private CompactTime(int packed) {
+        this.packed = packed;
     }
 
     /**
-     * Create a local CompactTime with only hours and minutes, but no DayOfWeek.
-     * 
+     * Get the local CompactTime from the system.
+     *
+     * @return the current time.
+     */
+    public static CompactTime now() {
+        return INSTANCES[currentPacked()];
+    }
+
+    /**
+     * Get the local CompactTime with only hours and minutes, but no DayOfWeek.
+     *
      * @param hour
      * @param minute
+     * @return the time.
+     */
+    public static CompactTime of(int hour, int minute) {
+        return INSTANCES[NO_DAY * MINUTES_PER_DAY + Math.floorMod(hour * 60 + minute, MINUTES_PER_DAY)];
+    }
+
+    /**
+     * Get the CompactTime for a packed value.
+     *
+     * @param packed the packed value.
+     * @return the time.
      */
-    public CompactTime(int hour, int minute) {
-        this.hour = hour;
-        this.minute = minute;
-        this.dayOfWeek = null;
+    public static CompactTime of(int packed) {
+        return INSTANCES[packed];
+    }
+
+    /**
+     * Get the packed value of the current local time.
+     *
+     * @return the packed value.
+     */
+    public static int currentPacked() {
+        long localMillis = toLocalMillis(System.currentTimeMillis());
+        long epochDay = Math.floorDiv(localMillis, MILLIS_PER_DAY);
+        int dayOfWeek = (int) Math.floorMod(epochDay + EPOCH_DAY_OF_WEEK, 7);
+        int minuteOfDay = (int) (Math.floorMod(localMillis, MILLIS_PER_DAY) / MILLIS_PER_MINUTE);
+        return dayOfWeek * MINUTES_PER_DAY + minuteOfDay;
+    }
+
+    /**
+     * Get the current local day.
+     *
+     * @return the number of days since 1970-01-01 in the local time zone.
+     */
+    public static long currentEpochDay() {
+        return Math.floorDiv(toLocalMillis(System.currentTimeMillis()), MILLIS_PER_DAY);
+    }
+
+    /**
+     * Convert epoch millis to local millis, i.e. epoch millis shifted with the zone offset. Only allocates when the
+     * time zone changed or a zone offset transition passed.
+     *
+     * @param epochMillis the time in epoch millis.
+     * @return the time in local millis.
+     */
+    public static long toLocalMillis(long epochMillis) {
+        return epochMillis + getOffsetMillis(epochMillis);
+    }
+
+    /**
+     * Convert local millis to epoch millis. As with ZonedDateTime.ofLocal, the offset before a zone offset transition
+     * is used: a time in a gap moves forward by the length of the gap, and a time in an overlap gets the earlier of
+     * the two instants.
+     *
+     * @param localMillis the time in local millis.
+     * @return the time in epoch millis.
+     */
+    public static long toEpochMillis(long localMillis) {
+        // Use the cached offset when the time is well within its range, without replacing the cache with a range for
+        // a local time. Offsets differ by less than a day, so a local time there is unambiguous.
+        ZoneId zone = SystemHelper.getZoneId();
+        OffsetRange range = offsetRange;
+        if (range != null && range.zone.equals(zone)) {
+            long epochMillis = localMillis - range.offsetMillis;
+            if (epochMillis - MILLIS_PER_DAY >= range.fromMillis && epochMillis + MILLIS_PER_DAY < range.untilMillis) {
+                return epochMillis;
+            }
+        }
+        LocalDateTime localTime = LocalDateTime.ofEpochSecond(Math.floorDiv(localMillis, 1000L),
+                (int) Math.floorMod(localMillis, 1000L) * 1000000, ZoneOffset.UTC);
+        ZoneRules rules = zone.getRules();
+        ZoneOffsetTransition transition = rules.getTransition(localTime);
+        ZoneOffset offset = transition == null ? rules.getOffset(localTime) : transition.getOffsetBefore();
+        return localMillis - offset.getTotalSeconds() * 1000L;
+    }
+
+    /**
+     * Get the first time after the given time the local time is a whole multiple of the period, e.g. the next minute
+     * or hour boundary. The distance to the boundary is taken in local time and added in epoch time, so the result
+     * is always later than the given time, also when a zone offset transition is passed: after a gap the boundary is
+     * the first one after the gap, and in an overlap the boundaries of the repeated period are not skipped.
+     *
+     * @param epochMillis the time in epoch millis.
+     * @param periodMillis the period, e.g. MILLIS_PER_MINUTE or MILLIS_PER_HOUR.
+     * @return the time of the next boundary in epoch millis.
+     */
+    public static long nextBoundary(long epochMillis, long periodMillis) {
+        return epochMillis + periodMillis - Math.floorMod(toLocalMillis(epochMillis), periodMillis);
+    }
+
+    /**
+     * Get the first time after the given time the given minute of the day occurs. A minute in a gap of a zone offset
+     * transition occurs as much later as the gap is long, a minute in an overlap occurs the first time only.
+     *
+     * @param minuteOfDay the minute of the day (0..1439).
+     * @param epochMillis the time in epoch millis.
+     * @return the time in epoch millis.
+     */
+    public static long nextOccurrence(int minuteOfDay, long epochMillis) {
+        long localMillis = toLocalMillis(epochMillis);
+        long midnight = localMillis - Math.floorMod(localMillis, MILLIS_PER_DAY);
+        long next = toEpochMillis(midnight + minuteOfDay * MILLIS_PER_MINUTE);
+        if (next <= epochMillis) {
+            next = toEpochMillis(midnight + MILLIS_PER_DAY + minuteOfDay * MILLIS_PER_MINUTE);
+        }
+        return next;
+    }
+
+    /**
+     * Get the zone offset in millis at the given time.
+     *
+     * @param epochMillis the time in epoch millis.
+     * @return the zone offset.
+     */
+    private static long getOffsetMillis(long epochMillis) {
+        ZoneId zone = SystemHelper.getZoneId();
+        OffsetRange range = offsetRange;
+        if (range == null || !range.zone.equals(zone) || epochMillis < range.fromMillis
+                || epochMillis >= range.untilMillis) {
+            range = new OffsetRange(zone, epochMillis);
+            offsetRange = range;
+        }
+        return range.offsetMillis;
+    }
+
+    /**
+     * Get the minute of the day of a packed time.
+     *
+     * @param packed the packed time.
+     * @return the minute of the day (0..1439).
+     */
+    public static int minuteOfDay(int packed) {
+        return packed % MINUTES_PER_DAY;
+    }
+
+    /**
+     * Return true if the minute of the day is within the timeframe previous and current. The timeframe may cross
+     * midnight when the day changed, or when the times have no day of week. When the time stepped back on the same
+     * day, e.g. at the end of daylight saving time, the timeframe is empty.
+     *
+     * @param minuteOfDay the minute of the day.
+     * @param previous the previous packed time.
+     * @param current the current packed time.
+     * @return
+     */
+    public static boolean isSwitchTime(int minuteOfDay, int previous, int current) {
+        int from = minuteOfDay(previous);
+        int to = minuteOfDay(current);
+        if (from <= to) {
+            return minuteOfDay > from && minuteOfDay <= to;
+        }
+        int day = previous / MINUTES_PER_DAY;
+        if (day == current / MINUTES_PER_DAY && day != NO_DAY) {
+            return false;
+        }
+        return minuteOfDay > from || minuteOfDay <= to;
     }
 
     /**
      * Return true if the time (hour:minute) of this instance is within the timeframe previous and current. The reason
      * is to make sure a switching event is not missed, even when for whatever reason to time between ticks exceeds the
      * minute.
-     * 
+     *
      * @param previous the previous time. Must be non null.
      * @param current  the current time. Must be non null.
      * @return
      */
     public boolean isSwitchTime(CompactTime previous, CompactTime current) {
-        return getCanonicalTime() > previous.getCanonicalTime() && getCanonicalTime() <= current.getCanonicalTime();
+        return isSwitchTime(getMinuteOfDay(), previous.packed, current.packed);
     }
 
     /**
      * Return true if this time is less than the given other time.
-     * 
+     *
      * @param other the other time. Must be non null.
      * @return
      */
     public boolean isLessThan(CompactTime other) {
-        return getCanonicalTime() < other.getCanonicalTime();
+        return getMinuteOfDay() < other.getMinuteOfDay();
     }
 
     /**
      * Return true if this time is less than or equal to the given other time.
-     * 
+     *
      * @param other the other time. Must be non null.
      * @return
      */
     public boolean isLessThanOrEqual(CompactTime other) {
-        return getCanonicalTime() <= other.getCanonicalTime();
+        return getMinuteOfDay() <= other.getMinuteOfDay();
     }
 
     /**
-     * Convert the time to a single integer value for easy handling.
-     * 
-     * @return hour * 100 + minute.
+     * Get the minute of the day.
+     *
+     * @return hour * 60 + minute.
      */
-    private int getCanonicalTime() {
-        return hour * 100 + minute;
+    public int getMinuteOfDay() {
+        return minuteOfDay(packed);
+    }
+
+    /**
+     * Get the packed value.
+     *
+     * @return day of week ordinal * 1440 + minute of the day.
+     */
+    public int getPacked() {
+        return packed;
     }
 
     public int getHour() {
-        return hour;
+        return getMinuteOfDay() / 60;
     }
 
     public int getMinute() {
-        return minute;
+        return getMinuteOfDay() % 60;
     }
 
     public DayOfWeek getDayOfWeek() {
-        return dayOfWeek;
+        int day = packed / MINUTES_PER_DAY;
+        return day == NO_DAY ? null : DAYS[day];
     }
 
+    /**
+     * A zone offset with the range of time it is valid for.
+     *
+     * @author Wim Vissers.
+     *
+     */
+    private static class OffsetRange {
+        private final ZoneId zone;
+        private final long offsetMillis;
+        private final long fromMillis;
+        private final long untilMillis;
+
+        public OffsetRange(ZoneId zone, long epochMillis) {
+            Instant instant = Instant.ofEpochMilli(epochMillis);
+            ZoneRules rules = zone.getRules();
+            ZoneOffsetTransition previous = rules.previousTransition(instant.plusMillis(1));
+            ZoneOffsetTransition next = rules.nextTransition(instant);
+            this.zone = zone;
+            this.offsetMillis = rules.getOffset(instant).getTotalSeconds() * 1000L;
+            this.fromMillis = previous == null ? Long.MIN_VALUE : previous.toEpochSecond() * 1000;
+            this.untilMillis = next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000;
+        }
+    }
 }
@@ -20,7 +20,41 @@ public interface Constants {
     public static final String PROPERTY_TIMEZONE = "timezone";
     public static final String PROPERTY_LOCATION = "location";
 
+    // Binding configuration parameter names
+    public static final String CONFIG_SCHEDULING_MODE = "schedulingMode";
+    public static final String CONFIG_SCHEDULER_THREADS = "schedulerThreads";
+    public static final String CONFIG_SCHEDULER_PRIORITY = "schedulerPriority";
+
+    // Thing configuration parameter names
+    public static final String CONFIG_LOCATION = "location";
+    public static final String CONFIG_ON_EVENT = "onEvent";
+    public static final String CONFIG_OFF_EVENT = "offEvent";
+    public static final String CONFIG_ELEVATION = "elevation";
+    public static final String CONFIG_PUBLISH_MODE = "publishMode";
+    public static final String CONFIG_PUBLISH_INTERVAL = "publishInterval";
+
     // ClockManager settings
-    public static final int TIME_RESOLUTION_SECONDS = 30; // Should be < 60 seconds.
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final long MILLIS_PER_MINUTE = 60 * 1000;
+    public static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+    public static final long MILLIS_PER_DAY = MINUTES_PER_DAY * MILLIS_PER_MINUTE;
+    public static final long NANOS_PER_SECOND = 1000000000L;
+    public static final int SCHEDULING_SLACK_MILLIS = 50; // Wake up just after the boundary, never before.
+    public static final int DEFAULT_SCHEDULER_THREADS = 2;
+    public static final int DEFAULT_SCHEDULER_PRIORITY = Thread.NORM_PRIORITY + 1;
+    public static final long SCHEDULER_LATE_MILLIS = 1000; // Warn when a tick starts this late.
+
+    // TimerWheel settings
+    public static final int TIMER_WHEEL_SIZE = 512; // Must be a power of 2.
+    public static final long TIMER_WHEEL_TICK_MILLIS = 100;
+
+    // SunTableCache settings
+    public static final int SUN_TABLE_CACHE_SIZE = 256;
+    public static final int SUN_TABLE_GRID = 100; // Cells per degree, 0.01 degree is about 1 km.
+
+    // StateJournal settings
+    public static final long JOURNAL_FLUSH_MILLIS = 500; // Changes within this time are written in one batch.
+    public static final int JOURNAL_COMPACT_RATIO = 4; // Write a snapshot above this many records per value.
+    public static final int JOURNAL_COMPACT_MIN_RECORDS = 1024;
 
 }
@@ -8,17 +8,27 @@
  */
 package org.openhab.binding.alarmclock.internal;
 
-import java.util.List;
-import java.util.Map;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.function.BiConsumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Generic Event emitter implementation.
+ * Generic Event emitter implementation for enum event types.
+ *
+ * The handlers are kept in lock-free queues, one per event, indexed by the ordinal of the event. Registering does not
+ * copy or lock anything, and handlers registered with once are removed in a single pass after dispatching.
+ *
+ * A reverse index from key to handlers makes removing the handlers of a key proportional to the number of handlers of
+ * that key. Removed handlers are marked and skipped, and physically unlinked in a single pass at the next dispatch of
+ * their event, or when enough of them accumulated.
  *
  * @param &lt;E&gt; the event type.
  * @param &lt;P1&gt; the type of first payload the consumer accepts.
@@ -27,21 +37,38 @@ import org.slf4j.LoggerFactory;
  * @author Wim Vissers
  *
  */
-public class EventEmitter<E, P1, P2> {
+public class EventEmitter<E extends Enum<E>, P1, P2> {
+
+    // Number of removed handlers of an event that triggers unlinking them without waiting for the next dispatch.
+    private static final int SWEEP_THRESHOLD = 64;
+
+    // The collection with triggers, indexed by event ordinal.
+    private final Queue<CompoundConsumer<P1, P2>>[] triggers;
+
+    // The triggers by key, used when removing.
+    private final ConcurrentHashMap<Object, Queue<CompoundConsumer<P1, P2>>> triggersByKey;
 
-    // The collection with triggers.
-    private final Map<E, List<CompoundConsumer<E, P1, P2>>> triggers;
+    // The number of removed triggers still linked, indexed by event ordinal.
+    private final AtomicIntegerArray removedCounts;
 
     // The logger.
     private final Logger logger = LoggerFactory.getLogger(EventEmitter.class);
 
     /**
      * Create a generic EventEmitter.
+     *
+     * @param eventType the enum class of the events.
      */
-    public EventEmitter() {
-        triggers = new ConcurrentHashMap<>();
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public EventEmitter(Class<E> eventType) {
+        triggers = new Queue[eventType.getEnumConstants().length];
+        for (int i = 0; i < triggers.length; i++) {
+            triggers[i] = new ConcurrentLinkedQueue<>();
+        }
+        triggersByKey = new ConcurrentHashMap<>();
+        removedCounts = new AtomicIntegerArray(triggers.length);
     }
-    
+
     /**
      * Add a handler for the given event. Give key as a unique object, used to be able to remove certain handlers.
      *
@@ -53,7 +80,7 @@ public class EventEmitter<E, P1, P2> {
     public EventEmitter<E, P1, P2> on(E event, BiConsumer<P1, P2> callback, Object key) {
         return onHandler(event, callback, key, false);
     }
-    
+
     /**
      * Add a handler for the given event. Give key as a unique object, used to be able to remove certain handlers.
      *
@@ -76,14 +103,13 @@ public class EventEmitter<E, P1, P2> {
      */
     protected EventEmitter<E, P1, P2> onHandler(E event, BiConsumer<P1, P2> callback, Object key, boolean once) {
         logger.debug("Added on trigger for event {} and key {}.", event, key);
-        synchronized (this) {
-            List<CompoundConsumer<E, P1, P2>> lst = triggers.get(event);
-            if (lst == null) {
-                lst = new CopyOnWriteArrayList<>();
-                triggers.put(event, lst);
-            }
-            lst.add(new CompoundConsumer<E, P1, P2>(key, callback, once));
-        }
+        CompoundConsumer<P1, P2> cc = new CompoundConsumer<>(event.ordinal(), key, callback, once);
+        triggersByKey.compute(key, (k, lst) -> {
+            Queue<CompoundConsumer<P1, P2>> result = lst == null ? new ConcurrentLinkedQueue<>() : lst;
+            result.add(cc);
+            return result;
+        });
+        triggers[cc.event].add(cc);
         return this;
     }
 
@@ -93,26 +119,82 @@ public class EventEmitter<E, P1, P2> {
      * @param event the event.
      */
     public void emit(E event, P1 payload1, P2 payload2) {
-        List<CompoundConsumer<E, P1, P2>> lst = triggers.get(event);
-        if (lst != null) {
-            lst.forEach(cc -> {
-                cc.callback.accept(payload1, payload2);
-                if (cc.once) {
-                    lst.remove(cc);
+        int ordinal = event.ordinal();
+        for (CompoundConsumer<P1, P2> cc : triggers[ordinal]) {
+            if (cc.once) {
+                // Make sure a once handler is called only once, even when emitting concurrently.
+                if (!cc.kill()) {
+                    continue;
                 }
-            });
+                removedCounts.incrementAndGet(ordinal);
+                // Drop the queue of the key with its last handler, in the same step so a concurrent add is kept.
+                triggersByKey.computeIfPresent(cc.key, (k, lst) -> {
+                    lst.remove(cc);
+                    return lst.isEmpty() ? null : lst;
+                });
+            } else if (cc.dead != 0) {
+                continue;
+            }
+            accept(cc.callback, payload1, payload2);
+        }
+        if (removedCounts.get(ordinal) > 0) {
+            sweep(ordinal);
         }
     }
 
+    /**
+     * Call a handler with the payload. Subclasses may override this to call specialized handler types directly.
+     *
+     * @param callback the handler.
+     * @param payload1 the first payload.
+     * @param payload2 the second payload.
+     */
+    protected void accept(BiConsumer<P1, P2> callback, P1 payload1, P2 payload2) {
+        callback.accept(payload1, payload2);
+    }
+
     /**
      * Remove all triggers with the given key.
      *
      * @param key the key given when registering a trigger, typically the sender.
      */
     public void remove(Object key) {
-        // Iterate over the lists
-        for (List<CompoundConsumer<E, P1, P2>> lst : triggers.values()) {
-            lst.removeIf(cf -> cf.key.equals(key));
+        removeAll(Collections.singleton(key));
+    }
+
+    /**
+     * Remove all triggers with one of the given keys.
+     *
+     * @param keys the keys given when registering triggers, typically the senders.
+     */
+    public void removeAll(Collection<?> keys) {
+        for (Object key : keys) {
+            Queue<CompoundConsumer<P1, P2>> lst = triggersByKey.remove(key);
+            if (lst != null) {
+                for (CompoundConsumer<P1, P2> cc : lst) {
+                    if (cc.kill()) {
+                        removedCounts.incrementAndGet(cc.event);
+                    }
+                }
+            }
+        }
+        int threshold = keys.size() > 1 ? 1 : SWEEP_THRESHOLD;
+        for (int ordinal = 0; ordinal < triggers.length; ordinal++) {
+            if (removedCounts.get(ordinal) >= threshold) {
+                sweep(ordinal);
+            }
+        }
+    }
+
+    /**
+     * Unlink the removed triggers of an event in a single pass.
+     *
+     * @param ordinal the event ordinal.
+     */
+    private void sweep(int ordinal) {
+        int count = removedCounts.getAndSet(ordinal, 0);
+        if (count > 0) {
+            triggers[ordinal].removeIf(cc -> cc.dead != 0);
         }
     }
 
@@ -122,15 +204,31 @@ public class EventEmitter<E, P1, P2> {
      * @author Wim Vissers.
      *
      */
-    private class CompoundConsumer<F, Q1, Q2> {
+    private static class CompoundConsumer<Q1, Q2> {
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<CompoundConsumer> DEAD = AtomicIntegerFieldUpdater
+                .newUpdater(CompoundConsumer.class, "dead");
+
+        private final int event;
         private final boolean once;
         private final Object key;
         private final BiConsumer<Q1, Q2> callback;
+        private volatile int dead;
 
-        public CompoundConsumer(Object key, BiConsumer<Q1, Q2> callback, boolean once) {
+        public CompoundConsumer(int event, Object key, BiConsumer<Q1, Q2> callback, boolean once) {
+            this.event = event;
             this.key = key;
             this.callback = callback;
             this.once = once;
         }
+
+        /**
+         * Mark the handler as removed, or as fired for a once handler.
+         *
+         * @return true if it was not marked before.
+         */
+        public boolean kill() {
+            return DEAD.compareAndSet(this, 0, 1);
+        }
     }
 }
@@ -0,0 +1,61 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.alarmclock.internal;
+
+/**
+ * The PublishMode decides at which remaining seconds a running timer publishes its countdown. The timer only wakes up
+ * at those seconds and at the timeout, so a long timer produces a few events instead of one every second.
+ *
+ * @author Wim Vissers - Initial contribution
+ */
+public enum PublishMode {
+    // Every interval seconds, counted towards the timeout.
+    INTERVAL,
+    // Every second during the last interval seconds.
+    LAST,
+    // Only at the start and the timeout.
+    TIMEOUT;
+
+    /**
+     * Get the next remaining seconds to publish at, counting down from the current remaining seconds.
+     *
+     * @param seconds the current remaining seconds, at least 1.
+     * @param interval the configured interval in seconds, at least 1.
+     * @return the next remaining seconds (0..seconds - 1), 0 is the timeout.
+     */
+    public int next(int seconds, int interval) {
+        switch (this) {
+            case INTERVAL:
+                return (seconds - 1) / interval * interval;
+            case LAST:
+                return Math.min(seconds - 1, interval);
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Get the mode for a configuration value, ignoring case.
+     *
+     * @param value the configuration value.
+     * @param defaultMode the mode to return when the value is empty or unknown.
+     * @return the mode.
+     */
+    public static PublishMode fromConfig(Object value, PublishMode defaultMode) {
+        if (value != null) {
+            String name = value.toString().trim();
+            for (PublishMode mode : values()) {
+                if (mode.name().equalsIgnoreCase(name)) {
+                    return mode;
+                }
+            }
+        }
+        return defaultMode;
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.alarmclock.internal;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.StringType;
+
+/**
+ * The StateCache holds shared immutable channel states, so publishing a time or a number in the range used by the
+ * binding does not allocate. The 1440 times of the day are created in advance, the numbers, angles and day lists
+ * when first used. The day lists are localized, so they are dropped when the system settings change.
+ *
+ * @author Wim Vissers - Initial contribution
+ */
+public class StateCache implements Constants {
+
+    // The largest number cached, one day in seconds.
+    private static final int MAX_DECIMAL = 24 * 60 * 60;
+
+    // The range of angles cached in tenths of a degree, elevations from -90 and azimuths up to 360 degrees.
+    private static final int MIN_DEGREE_TENTHS = -900;
+    private static final int MAX_DEGREE_TENTHS = 3600;
+
+    private static final StringType[] TIMES = new StringType[MINUTES_PER_DAY];
+    private static final AtomicReferenceArray<DecimalType> DECIMALS = new AtomicReferenceArray<>(MAX_DECIMAL + 1);
+    private static final AtomicReferenceArray<DecimalType> DEGREES = new AtomicReferenceArray<>(
+            MAX_DEGREE_TENTHS - MIN_DEGREE_TENTHS + 1);
+
+    // The day lists for the current system settings, indexed by the bit mask of day ordinals.
+    private static volatile DaysTable daysTable;
+
+    static {
+        for (int minuteOfDay = 0; minuteOfDay < MINUTES_PER_DAY; minuteOfDay++) {
+            int h = minuteOfDay / 60;
+            int m = minuteOfDay % 60;
+            TIMES[minuteOfDay] = new StringType(("" + (100 + h)).substring(1) + ":" + ("" + (100 + m)).substring(1));
+        }
+    }
+
+    private StateCache() {
+    }
+
+    /**
+     * Get the time as StringType formatted as HH:mm.
+     *
+     * @param minuteOfDay the minute of the day, values outside the day wrap around.
+     * @return the time.
+     */
+    public static StringType getTime(int minuteOfDay) {
+        return TIMES[Math.floorMod(minuteOfDay, MINUTES_PER_DAY)];
+    }
+
+    /**
+     * Get the time of an event as StringType formatted as HH:mm, or an empty string when there is no event.
+     *
+     * @param minuteOfDay the minute of the day, or SunriseSunset.NO_EVENT.
+     * @return the time.
+     */
+    public static StringType getEventTime(int minuteOfDay) {
+        return minuteOfDay == SunriseSunset.NO_EVENT ? StringType.EMPTY : getTime(minuteOfDay);
+    }
+
+    /**
+     * Get the number as DecimalType.
+     *
+     * @param value the value.
+     * @return the number, shared when within 0..86400.
+     */
+    public static DecimalType getDecimal(long value) {
+        if (value < 0 || value > MAX_DECIMAL) {
+            return new DecimalType(value);
+        }
+        int index = (int) value;
+        DecimalType result = DECIMALS.get(index);
+        if (result == null) {
+            result = new DecimalType(value);
+            if (!DECIMALS.compareAndSet(index, null, result)) {
+                result = DECIMALS.get(index);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get an angle rounded to 0.1 degree as DecimalType.
+     *
+     * @param degrees the angle in degrees.
+     * @return the rounded angle, shared when within -90..360 degrees.
+     */
+    public static DecimalType getDegrees(double degrees) {
+        long tenths = Math.round(degrees * 10);
+        if (tenths < MIN_DEGREE_TENTHS || tenths > MAX_DEGREE_TENTHS) {
+            return new DecimalType(BigDecimal.valueOf(tenths, 1));
+        }
+        int index = (int) tenths - MIN_DEGREE_TENTHS;
+        DecimalType result = DEGREES.get(index);
+        if (result == null) {
+            result = new DecimalType(BigDecimal.valueOf(tenths, 1));
+            if (!DEGREES.compareAndSet(index, null, result)) {
+                result = DEGREES.get(index);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the comma separated short names of the given days, in week order.
+     *
+     * @param days the days.
+     * @return the day list.
+     */
+    public static StringType getDays(Set<DayOfWeek> days) {
+        int mask = 0;
+        for (DayOfWeek dow : days) {
+            mask |= 1 << dow.ordinal();
+        }
+        return getDays(mask);
+    }
+
+    /**
+     * Get the comma separated short names of the given days, in week order.
+     *
+     * @param mask the bit mask of the days, by ordinal.
+     * @return the day list.
+     */
+    public static StringType getDays(int mask) {
+        long version = SystemHelper.getVersion();
+        DaysTable table = daysTable;
+        if (table == null || table.version != version) {
+            table = new DaysTable(version);
+            daysTable = table;
+        }
+        StringType result = table.lists.get(mask);
+        if (result == null) {
+            StringBuilder b = new StringBuilder();
+            for (DayOfWeek dow : DayOfWeek.values()) {
+                if ((mask & 1 << dow.ordinal()) != 0) {
+                    b.append(b.length() != 0 ? ", " : "").append(dow.getShortName());
+                }
+            }
+            result = new StringType(b.toString());
+            table.lists.lazySet(mask, result);
+        }
+        return result;
+    }
+
+    /**
+     * The day lists valid for a version of the system settings.
+     *
+     * @author Wim Vissers.
+     *
+     */
+    private static class DaysTable {
+        private final long version;
+        private final AtomicReferenceArray<StringType> lists;
+
+        public DaysTable(long version) {
+            this.version = version;
+            this.lists = new AtomicReferenceArray<>(1 << DayOfWeek.values().length);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.alarmclock.internal;
+
+import static org.openhab.binding.alarmclock.AlarmClockBindingConstants.BINDING_ID;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The singleton StateJournal keeps the runtime state of things, changed through channels, across restarts. The values
+ * are kept in memory and every change is appended as a small record to a journal file in the userdata folder. Changes
+ * are collected and written by a single writer thread in batches, so a burst of commands results in a single write.
+ * When the journal grows too large compared to the number of values, it is replaced by a snapshot.
+ *
+ * The values of a thing are only restored when the configuration of the thing did not change meanwhile, otherwise the
+ * configuration wins.
+ *
+ * A record is a type byte, the thing UID and, for a put, the field and a long value. A torn record at the end, after a
+ * crash, is ignored and cut off.
+ *
+ * @author Wim Vissers - Initial contribution
+ */
+public class StateJournal implements Constants {
+
+    // Field names.
+    public static final String FIELD_CONFIG = "config";
+    public static final String FIELD_ENABLED = "enabled";
+    public static final String FIELD_DAYS = "days";
+    public static final String FIELD_ON_TIME = "onTime";
+    public static final String FIELD_OFF_TIME = "offTime";
+    public static final String FIELD_DURATION = "duration";
+    public static final String FIELD_DEADLINE = "deadline";
+
+    private static final StateJournal INSTANCE = new StateJournal();
+
+    private static final int MAGIC = 0x534a4e31;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final String FILE_NAME = "state.journal";
+
+    // The logger instance.
+    private final Logger logger = LoggerFactory.getLogger(StateJournal.class);
+
+    // The values by thing UID and field, guarded by this.
+    private final Map<String, Map<String, Long>> values = new HashMap<>();
+
+    // The records not yet written, guarded by this.
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private int pendingCount;
+
+    // Held while writing the file, before this.
+    private final Object writeLock = new Object();
+
+    // The number of values and the number of records in the file, guarded by this.
+    private int valueCount;
+    private int recordCount;
+
+    // Guarded by this.
+    private File file;
+    private ScheduledExecutorService writer;
+    private ScheduledFuture<?> flushTask;
+
+    /**
+     * Singleton, so private constructor.
+     */
+    private StateJournal() {
+    }
+
+    /**
+     * Open the values of a thing. When the configuration changed since the values were written, the values are
+     * dropped.
+     *
+     * @param uid the thing UID.
+     * @param configHash the hash of the current configuration of the thing.
+     * @return true if the thing has values to restore.
+     */
+    public synchronized boolean open(String uid, long configHash) {
+        load();
+        Map<String, Long> thingValues = values.get(uid);
+        if (thingValues != null && Long.valueOf(configHash).equals(thingValues.get(FIELD_CONFIG))) {
+            return thingValues.size() > 1;
+        }
+        if (thingValues != null) {
+            remove(uid);
+        }
+        put(uid, FIELD_CONFIG, configHash);
+        return false;
+    }
+
+    /**
+     * Get a value of a thing.
+     *
+     * @param uid the thing UID.
+     * @param field the field.
+     * @param defaultValue the value to return when not present.
+     * @return the value.
+     */
+    public synchronized long get(String uid, String field, long defaultValue) {
+        load();
+        Map<String, Long> thingValues = values.get(uid);
+        Long value = thingValues == null ? null : thingValues.get(field);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Set a value of a thing. The value is written asynchronously.
+     *
+     * @param uid the thing UID.
+     * @param field the field.
+     * @param value the value.
+     */
+    public synchronized void put(String uid, String field, long value) {
+        load();
+        Long previous = values.computeIfAbsent(uid, k -> new HashMap<>()).put(field, value);
+        if (previous == null || previous != value) {
+            if (previous == null) {
+                valueCount++;
+            }
+            try {
+                DataOutputStream out = new DataOutputStream(pending);
+                out.writeByte(PUT);
+                out.writeUTF(uid);
+                out.writeUTF(field);
+                out.writeLong(value);
+            } catch (IOException ex) {
+                // Can not happen when writing to memory.
+            }
+            pendingCount++;
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Remove all values of a thing.
+     *
+     * @param uid the thing UID.
+     */
+    public synchronized void remove(String uid) {
+        load();
+        Map<String, Long> thingValues = values.remove(uid);
+        if (thingValues != null) {
+            valueCount -= thingValues.size();
+            try {
+                DataOutputStream out = new DataOutputStream(pending);
+                out.writeByte(REMOVE);
+                out.writeUTF(uid);
+            } catch (IOException ex) {
+                // Can not happen when writing to memory.
+            }
+            pendingCount++;
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Write the pending records and stop the writer thread.
+     */
+    public void stop() {
+        flush();
+        synchronized (this) {
+            if (writer != null) {
+                writer.shutdown();
+                writer = null;
+                flushTask = null;
+            }
+        }
+    }
+
+    /**
+     * Schedule writing the pending records, unless already scheduled. Must be called while holding the lock.
+     */
+    private void scheduleFlush() {
+        if (flushTask == null) {
+            if (writer == null) {
+                writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "alarmclock-journal");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            flushTask = writer.schedule(this::flush, JOURNAL_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write the pending records, or a snapshot when the journal grew too large. Only one thread writes at a time.
+     */
+    private void flush() {
+        synchronized (this) {
+            flushTask = null;
+        }
+        synchronized (writeLock) {
+            byte[] bytes;
+            boolean snapshot;
+            synchronized (this) {
+                if (pendingCount == 0) {
+                    return;
+                }
+                recordCount += pendingCount;
+                snapshot = recordCount > JOURNAL_COMPACT_RATIO * valueCount + JOURNAL_COMPACT_MIN_RECORDS;
+                if (snapshot) {
+                    bytes = snapshot();
+                    recordCount = valueCount;
+                } else {
+                    bytes = pending.toByteArray();
+                }
+                pending = new ByteArrayOutputStream();
+                pendingCount = 0;
+            }
+            try {
+                if (snapshot) {
+                    File tmp = new File(file.getPath() + ".tmp");
+                    write(tmp, bytes, false);
+                    Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } else {
+                    write(file, bytes, true);
+                }
+            } catch (IOException ex) {
+                logger.warn("Unable to write state journal {}: {}", file, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Write bytes to a file and force them to the disk.
+     *
+     * @param target the file.
+     * @param bytes the bytes.
+     * @param append true to append, false to replace the file.
+     * @throws IOException when writing fails.
+     */
+    private void write(File target, byte[] bytes, boolean append) throws IOException {
+        File folder = target.getParentFile();
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Can not create folder " + folder);
+        }
+        try (FileOutputStream out = new FileOutputStream(target, append)) {
+            if (!append || target.length() == 0) {
+                new DataOutputStream(out).writeInt(MAGIC);
+            }
+            out.write(bytes);
+            out.getChannel().force(false);
+        }
+    }
+
+    /**
+     * Serialize all values as put records. Must be called while holding the lock.
+     *
+     * @return the records.
+     */
+    private byte[] snapshot() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            for (Map.Entry<String, Map<String, Long>> thing : values.entrySet()) {
+                for (Map.Entry<String, Long> value : thing.getValue().entrySet()) {
+                    out.writeByte(PUT);
+                    out.writeUTF(thing.getKey());
+                    out.writeUTF(value.getKey());
+                    out.writeLong(value.getValue());
+                }
+            }
+        } catch (IOException ex) {
+            // Can not happen when writing to memory.
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Read the journal, once. Must be called while holding the lock.
+     */
+    private void load() {
+        if (file != null) {
+            return;
+        }
+        long start = System.nanoTime();
+        file = new File(ConfigConstants.getUserDataFolder() + File.separator + BINDING_ID, FILE_NAME);
+        if (!file.isFile()) {
+            return;
+        }
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file.toPath());
+        } catch (IOException ex) {
+            logger.warn("Unable to read state journal {}: {}", file, ex.getMessage());
+            return;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int valid = 0;
+        try {
+            if (in.readInt() != MAGIC) {
+                logger.warn("Ignoring state journal {} with unknown format.", file);
+                file.delete();
+                return;
+            }
+            valid = 4;
+            while (in.available() > 0) {
+                byte type = in.readByte();
+                String uid = in.readUTF();
+                if (type == PUT) {
+                    String field = in.readUTF();
+                    long value = in.readLong();
+                    if (values.computeIfAbsent(uid, k -> new HashMap<>()).put(field, value) == null) {
+                        valueCount++;
+                    }
+                } else if (type == REMOVE) {
+                    Map<String, Long> thingValues = values.remove(uid);
+                    if (thingValues != null) {
+                        valueCount -= thingValues.size();
+                    }
+                } else {
+                    throw new IOException("Unknown record type " + type);
+                }
+                recordCount++;
+                valid = bytes.length - in.available();
+            }
+        } catch (IOException ex) {
+            // A torn or corrupt record at the end, keep the records before it.
+            logger.info("Cutting off state journal {} at {} of {} bytes.", file, valid, bytes.length);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(valid);
+            } catch (IOException e) {
+                logger.warn("Unable to repair state journal {}: {}", file, e.getMessage());
+            }
+        }
+        logger.debug("Loaded state journal with {} values of {} things from {} records in {} ms.", valueCount,
+                values.size(), recordCount, (System.nanoTime() - start) / 1000000);
+    }
+
+    /**
+     * Return the singleton instance.
+     *
+     * @return the singleton instance.
+     */
+    public static StateJournal getInstance() {
+        return INSTANCE;
+    }
+}
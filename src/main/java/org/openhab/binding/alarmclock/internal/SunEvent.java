@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.alarmclock.internal;
+
+/**
+ * The SunEvent enum holds the moments of the day a sun clock can switch on or off. The fixed events are the official
+ * sunrise and sunset and the start and end of civil, nautical and astronomical twilight. The elevation events are the
+ * moments the sun passes a configured elevation angle.
+ *
+ * @author Wim Vissers - Initial contribution
+ */
+public enum SunEvent {
+    SUNRISE(SunriseSunset.ZENITH_OFFICIAL, true),
+    SUNSET(SunriseSunset.ZENITH_OFFICIAL, false),
+    CIVIL_DAWN(96, true),
+    CIVIL_DUSK(96, false),
+    NAUTICAL_DAWN(102, true),
+    NAUTICAL_DUSK(102, false),
+    ASTRONOMICAL_DAWN(108, true),
+    ASTRONOMICAL_DUSK(108, false),
+    ELEVATION_RISING(Double.NaN, true),
+    ELEVATION_SETTING(Double.NaN, false);
+
+    // The number of events with a fixed zenith, they come first.
+    public static final int FIXED_COUNT = 8;
+
+    // The distinct zeniths of the fixed events, each shared by a rising and setting event.
+    private static final double[] FIXED_ZENITHS = { SunriseSunset.ZENITH_OFFICIAL, 96, 102, 108 };
+
+    private final double zenith;
+    private final boolean rising;
+
+    private SunEvent(double zenith, boolean rising) {
+        this.zenith = zenith;
+        this.rising = rising;
+    }
+
+    /**
+     * Get the zenith of the event in degrees.
+     *
+     * @return the zenith, or NaN for the elevation events.
+     */
+    public double getZenith() {
+        return zenith;
+    }
+
+    /**
+     * Return true for a morning event, when the sun is rising.
+     *
+     * @return true when rising.
+     */
+    public boolean isRising() {
+        return rising;
+    }
+
+    /**
+     * Return true if the zenith is fixed.
+     *
+     * @return true unless an elevation event.
+     */
+    public boolean isFixed() {
+        return ordinal() < FIXED_COUNT;
+    }
+
+    /**
+     * Get the distinct zeniths of the fixed events, in the order of the events. Event e uses zenith e.ordinal() / 2.
+     *
+     * @return a copy of the zeniths.
+     */
+    public static double[] getFixedZeniths() {
+        return FIXED_ZENITHS.clone();
+    }
+
+    /**
+     * Get the event for a configuration value.
+     *
+     * @param value the name of the event, may be null.
+     * @param defaultEvent the event to return when the value is empty or not an event.
+     * @return the event.
+     */
+    public static SunEvent fromConfig(Object value, SunEvent defaultEvent) {
+        if (value != null) {
+            String name = value.toString().trim();
+            for (SunEvent event : values()) {
+                if (event.name().equalsIgnoreCase(name)) {
+                    return event;
+                }
+            }
+        }
+        return defaultEvent;
+    }
+}
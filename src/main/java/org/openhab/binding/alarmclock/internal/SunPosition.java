@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.alarmclock.internal;
+
+/**
+ * The SunPosition gives the azimuth and elevation of the sun at a location during a local day. The direction of the
+ * sun, as a unit vector pointing east, north and up, is computed with the solar model of SunriseSunset at a few
+ * points, and each component is fitted with a Chebyshev series. Evaluating a position then takes a few multiplications
+ * per component, and an asin or atan2 to get the angle.
+ *
+ * Instances are immutable and can be shared by all things at the location.
+ *
+ * @author Wim Vissers - Initial contribution
+ */
+public final class SunPosition implements Constants {
+
+    // The number of Chebyshev coefficients per component, the error is far below 0.01 degree.
+    private static final int TERMS = 16;
+
+    // The fitted range, the longest local day is 25 hours.
+    private static final double RANGE_MINUTES = 25 * 60;
+
+    // Epoch day 0 at 0h UT in days since J2000, as in SUNUP.BAS.
+    private static final double EPOCH_J2000 = 2440587.5 - 2451545.0;
+
+    private final double latitude;
+    private final double longitude;
+    private final long startMillis;
+    private final double[] east;
+    private final double[] north;
+    private final double[] up;
+
+    private SunPosition(double latitude, double longitude, long startMillis) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.startMillis = startMillis;
+        east = new double[TERMS];
+        north = new double[TERMS];
+        up = new double[TERMS];
+    }
+
+    /**
+     * Fit the sun position at a location for a local day.
+     *
+     * @param latitude the latitude.
+     * @param longitude the longitude.
+     * @param epochDay the local day.
+     * @return the sun position.
+     */
+    public static SunPosition fit(double latitude, double longitude, long epochDay) {
+        SunPosition position = new SunPosition(latitude, longitude,
+                CompactTime.toEpochMillis(epochDay * MILLIS_PER_DAY));
+        double[] direction = new double[3];
+        for (int k = 0; k < TERMS; k++) {
+            double node = Math.cos(Math.PI * (k + 0.5) / TERMS);
+            double minute = (node + 1) / 2 * RANGE_MINUTES;
+            direction(latitude, longitude, position.startMillis / (double) MILLIS_PER_DAY + minute / MINUTES_PER_DAY,
+                    direction);
+            for (int j = 0; j < TERMS; j++) {
+                double weight = Math.cos(Math.PI * j * (k + 0.5) / TERMS) * 2 / TERMS;
+                position.east[j] += direction[0] * weight;
+                position.north[j] += direction[1] * weight;
+                position.up[j] += direction[2] * weight;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Compute the direction of the sun with the solar model of SunriseSunset.
+     *
+     * @param latitude the latitude.
+     * @param longitude the longitude.
+     * @param epochDays the time in days since 1970-01-01 0h UT.
+     * @param direction receives the east, north and up components of the unit vector.
+     */
+    static void direction(double latitude, double longitude, double epochDays, double[] direction) {
+        double dayStart = Math.floor(epochDays);
+        double dfT = epochDays + EPOCH_J2000;
+        double dfTT = dfT / 36525.0 + 1.0;
+
+        // Local sidereal time, SUNUP.BAS 410 through 460 at 0h UT, advanced by the hours since.
+        double dfT0 = ((dayStart + EPOCH_J2000) * 8640184.813 / 36525.0 + 24110.5 + longitude / 360.0 * 86400.0)
+                / 86400.0;
+        double siderealTime = (dfT0 - Math.floor(dfT0)) * 2.0 * Math.PI
+                + (epochDays - dayStart) * 24 * SunriseSunset.K1;
+
+        double hourAngle = siderealTime - SunriseSunset.rightAscension(dfT, dfTT);
+        double declination = SunriseSunset.declination(dfT, dfTT);
+        double sinLat = Math.sin(Math.toRadians(latitude));
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        double sinDec = Math.sin(declination);
+        double cosDec = Math.cos(declination);
+        double cosHour = Math.cos(hourAngle);
+        direction[0] = -cosDec * Math.sin(hourAngle);
+        direction[1] = cosLat * sinDec - sinLat * cosDec * cosHour;
+        direction[2] = sinLat * sinDec + cosLat * cosDec * cosHour;
+    }
+
+    /**
+     * Evaluate a fitted component with the Clenshaw recurrence.
+     *
+     * @param coefficients the coefficients.
+     * @param epochMillis the time.
+     * @return the value.
+     */
+    private double evaluate(double[] coefficients, long epochMillis) {
+        double x = (epochMillis - startMillis) / (double) MILLIS_PER_MINUTE / RANGE_MINUTES * 2 - 1;
+        x = Math.max(-1, Math.min(1, x));
+        double b1 = 0;
+        double b2 = 0;
+        for (int j = TERMS - 1; j > 0; j--) {
+            double b0 = 2 * x * b1 - b2 + coefficients[j];
+            b2 = b1;
+            b1 = b0;
+        }
+        return x * b1 - b2 + coefficients[0] / 2;
+    }
+
+    /**
+     * Get the elevation of the sun above the horizon, without refraction.
+     *
+     * @param epochMillis the time.
+     * @return the elevation in degrees, negative below the horizon.
+     */
+    public double getElevation(long epochMillis) {
+        return Math.toDegrees(Math.asin(Math.max(-1, Math.min(1, evaluate(up, epochMillis)))));
+    }
+
+    /**
+     * Get the azimuth of the sun.
+     *
+     * @param epochMillis the time.
+     * @return the azimuth in degrees clockwise from north (0..360).
+     */
+    public double getAzimuth(long epochMillis) {
+        double azimuth = Math.toDegrees(Math.atan2(evaluate(east, epochMillis), evaluate(north, epochMillis)));
+        return azimuth < 0 ? azimuth + 360 : azimuth;
+    }
+
+    /**
+     * Return true if this position is fitted for the location and local day.
+     *
+     * @param latitude the latitude.
+     * @param longitude the longitude.
+     * @param epochDay the local day.
+     * @return true if it matches.
+     */
+    public boolean matches(double latitude, double longitude, long epochDay) {
+        return this.latitude == latitude && this.longitude == longitude
+                && startMillis == CompactTime.toEpochMillis(epochDay * MILLIS_PER_DAY);
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.alarmclock.internal;
+
+import java.util.Arrays;
+
+import org.eclipse.smarthome.core.library.types.StringType;
+
+/**
+ * Immutable snapshot of the times of the fixed sun events and the position of the sun of a day at the system
+ * location, published by the SystemSunClock. Each snapshot with different values gets a higher version, so handlers
+ * only need to compare versions to see if they should update.
+ *
+ * @author Wim Vissers - Initial contribution
+ */
+public final class SunSchedule {
+
+    private final long version;
+    private final long epochDay;
+
+    // The minutes of the fixed events, indexed by ordinal.
+    private final int[] minutes;
+
+    // The position of the sun during the day.
+    private final SunPosition position;
+
+    public SunSchedule(long version, long epochDay, int[] minutes, SunPosition position) {
+        this.version = version;
+        this.epochDay = epochDay;
+        this.minutes = minutes.clone();
+        this.position = position;
+    }
+
+    /**
+     * Return true if this snapshot holds the given values.
+     *
+     * @param epochDay the local day.
+     * @param minutes the minutes of the fixed events, indexed by ordinal.
+     * @return true if equal.
+     */
+    public boolean hasValues(long epochDay, int[] minutes) {
+        return this.epochDay == epochDay && Arrays.equals(this.minutes, minutes);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the local day the snapshot is valid for.
+     *
+     * @return the number of days since 1970-01-01.
+     */
+    public long getEpochDay() {
+        return epochDay;
+    }
+
+    /**
+     * Get the local minute of the day of a fixed event.
+     *
+     * @param event the event, must be fixed.
+     * @return the minute of the day, or SunriseSunset.NO_EVENT when the event does not happen.
+     */
+    public int getMinute(SunEvent event) {
+        return minutes[event.ordinal()];
+    }
+
+    public SunPosition getPosition() {
+        return position;
+    }
+
+    public StringType getSunrise() {
+        return StateCache.getEventTime(getMinute(SunEvent.SUNRISE));
+    }
+
+    public StringType getSunset() {
+        return StateCache.getEventTime(getMinute(SunEvent.SUNSET));
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.alarmclock.internal;
+
+import static org.openhab.binding.alarmclock.AlarmClockBindingConstants.BINDING_ID;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+import java.util.stream.IntStream;
+
+import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The SunTable holds the local minute of the day of every fixed SunEvent for every day of a year at a location. The table
+ * is computed once, in parallel, and kept in a memory mapped file in the userdata folder, so a lookup is a single index
+ * and a restart with the same location, time zone and year does not compute anything.
+ *
+ * The file starts with a header with the location, time zone and year the table is valid for, followed by a short per
+ * fixed event per day. The magic number is written last, so an incomplete file is never used.
+ *
+ * @author Wim Vissers - Initial contribution
+ */
+public class SunTable implements Constants {
+
+    // The number of days in the table, enough for a leap year.
+    public static final int DAYS = 366;
+
+    private static final int MAGIC = 0x53554e32;
+    private static final int MAX_ZONE_LENGTH = 96;
+    private static final int HEADER_SIZE = 128;
+    private static final int DAY_SIZE = SunEvent.FIXED_COUNT * 2;
+    private static final int SIZE = HEADER_SIZE + DAYS * DAY_SIZE;
+
+    // Header offsets.
+    private static final int MAGIC_OFFSET = 0;
+    private static final int LATITUDE_OFFSET = 4;
+    private static final int LONGITUDE_OFFSET = 12;
+    private static final int YEAR_OFFSET = 20;
+    private static final int ZONE_OFFSET = 24;
+
+    private static final String FILE_NAME = "suntable.bin";
+
+    private static final Logger logger = LoggerFactory.getLogger(SunTable.class);
+
+    private final double latitude;
+    private final double longitude;
+    private final ZoneId zone;
+    private final int year;
+    private final ByteBuffer buffer;
+
+    private SunTable(double latitude, double longitude, ZoneId zone, int year, ByteBuffer buffer) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.zone = zone;
+        this.year = year;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Open the table for a location, time zone and year. The persisted table is used when it matches, otherwise it is
+     * computed and persisted. When the file can not be used, the table is only kept in memory.
+     *
+     * @param latitude the latitude.
+     * @param longitude the longitude.
+     * @param zone the time zone.
+     * @param year the year.
+     * @return the table.
+     */
+    public static SunTable open(double latitude, double longitude, ZoneId zone, int year) {
+        File file = new File(ConfigConstants.getUserDataFolder() + File.separator + BINDING_ID, FILE_NAME);
+        ByteBuffer buffer;
+        try {
+            buffer = map(file);
+        } catch (IOException ex) {
+            logger.warn("Unable to map sun table {}, keeping it in memory: {}", file, ex.getMessage());
+            buffer = ByteBuffer.allocate(SIZE);
+        }
+        SunTable table = new SunTable(latitude, longitude, zone, year, buffer);
+        if (!table.isValid()) {
+            table.compute();
+        }
+        return table;
+    }
+
+    /**
+     * Compute a table for a location, time zone and year, kept in memory only.
+     *
+     * @param latitude the latitude.
+     * @param longitude the longitude.
+     * @param zone the time zone.
+     * @param year the year.
+     * @return the table.
+     */
+    public static SunTable compute(double latitude, double longitude, ZoneId zone, int year) {
+        SunTable table = new SunTable(latitude, longitude, zone, year, ByteBuffer.allocate(SIZE));
+        table.compute();
+        return table;
+    }
+
+    /**
+     * Map the file, creating it when needed.
+     *
+     * @param file the file.
+     * @return the mapped buffer.
+     * @throws IOException when the file can not be created or mapped.
+     */
+    private static MappedByteBuffer map(File file) throws IOException {
+        File folder = file.getParentFile();
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Can not create folder " + folder);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            // The mapping stays valid after closing the channel.
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, SIZE);
+        }
+    }
+
+    /**
+     * Return true if the buffer holds a complete table for this location, time zone and year.
+     *
+     * @return true if valid.
+     */
+    private boolean isValid() {
+        if (buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getDouble(LATITUDE_OFFSET) != latitude
+                || buffer.getDouble(LONGITUDE_OFFSET) != longitude || buffer.getInt(YEAR_OFFSET) != year) {
+            return false;
+        }
+        byte[] zoneBytes = zone.getId().getBytes(StandardCharsets.UTF_8);
+        if (buffer.get(ZONE_OFFSET) != zoneBytes.length) {
+            return false;
+        }
+        for (int i = 0; i < zoneBytes.length; i++) {
+            if (buffer.get(ZONE_OFFSET + 1 + i) != zoneBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compute the days in parallel, store them and write the header.
+     */
+    private void compute() {
+        long start = System.nanoTime();
+        buffer.putInt(MAGIC_OFFSET, 0);
+        long firstDay = LocalDate.of(year, 1, 1).toEpochDay();
+        ZoneRules rules = zone.getRules();
+        short[] minutes = new short[DAYS * SunEvent.FIXED_COUNT];
+        IntStream.range(0, DAYS).parallel().forEach(i -> {
+            long epochDay = firstDay + i;
+            double[] zeniths = SunEvent.getFixedZeniths();
+            long[] solutions = new long[zeniths.length];
+            SunriseSunset.solve(latitude, longitude, epochDay, getZoneHours(rules, epochDay), zeniths, solutions);
+            for (int z = 0; z < zeniths.length; z++) {
+                minutes[i * SunEvent.FIXED_COUNT + 2 * z] = (short) SunriseSunset.getSunrise(solutions[z]);
+                minutes[i * SunEvent.FIXED_COUNT + 2 * z + 1] = (short) SunriseSunset.getSunset(solutions[z]);
+            }
+        });
+        for (int i = 0; i < minutes.length; i++) {
+            buffer.putShort(HEADER_SIZE + i * 2, minutes[i]);
+        }
+        buffer.putDouble(LATITUDE_OFFSET, latitude);
+        buffer.putDouble(LONGITUDE_OFFSET, longitude);
+        buffer.putInt(YEAR_OFFSET, year);
+        byte[] zoneBytes = zone.getId().getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(zoneBytes.length, MAX_ZONE_LENGTH);
+        buffer.put(ZONE_OFFSET, (byte) length);
+        for (int i = 0; i < length; i++) {
+            buffer.put(ZONE_OFFSET + 1 + i, zoneBytes[i]);
+        }
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+        logger.debug("Computed sun table for {},{} in {} ms.", latitude, longitude,
+                (System.nanoTime() - start) / 1000000);
+    }
+
+    /**
+     * Return true if this table is valid for the location, time zone and year.
+     *
+     * @param latitude the latitude.
+     * @param longitude the longitude.
+     * @param zone the time zone.
+     * @param year the year.
+     * @return true if it matches.
+     */
+    public boolean matches(double latitude, double longitude, ZoneId zone, int year) {
+        return this.latitude == latitude && this.longitude == longitude && this.zone.equals(zone) && this.year == year;
+    }
+
+    /**
+     * Get the local minute of the day of a fixed event.
+     *
+     * @param event the event, must be fixed.
+     * @param dayOfYear the day of the year, starting at 0.
+     * @return the minute of the day, or SunriseSunset.NO_EVENT.
+     */
+    public int getMinute(SunEvent event, int dayOfYear) {
+        return buffer.getShort(HEADER_SIZE + dayOfYear * DAY_SIZE + event.ordinal() * 2);
+    }
+
+    /**
+     * Get the local minute of the day of the sunrise.
+     *
+     * @param dayOfYear the day of the year, starting at 0.
+     * @return the minute of the day, or SunriseSunset.NO_EVENT.
+     */
+    public int getSunrise(int dayOfYear) {
+        return getMinute(SunEvent.SUNRISE, dayOfYear);
+    }
+
+    /**
+     * Get the local minute of the day of the sunset.
+     *
+     * @param dayOfYear the day of the year, starting at 0.
+     * @return the minute of the day, or SunriseSunset.NO_EVENT.
+     */
+    public int getSunset(int dayOfYear) {
+        return getMinute(SunEvent.SUNSET, dayOfYear);
+    }
+
+    /**
+     * Solve the local times the sun passes a zenith on a day, for zeniths not in the table.
+     *
+     * @param latitude the latitude.
+     * @param longitude the longitude.
+     * @param zone the time zone.
+     * @param epochDay the local day.
+     * @param zenith the zenith in degrees.
+     * @return the packed solution, see SunriseSunset.
+     */
+    public static long solve(double latitude, double longitude, ZoneId zone, long epochDay, double zenith) {
+        return SunriseSunset.solve(latitude, longitude, epochDay, getZoneHours(zone.getRules(), epochDay), zenith);
+    }
+
+    /**
+     * Get the zone offset of a day in hours. The offset at local noon is the one in effect at sunrise and sunset,
+     * except on rare transition days.
+     *
+     * @param rules the zone rules.
+     * @param epochDay the local day.
+     * @return the offset in hours east of UTC.
+     */
+    private static double getZoneHours(ZoneRules rules, long epochDay) {
+        ZoneOffset offset = rules.getOffset(LocalDate.ofEpochDay(epochDay).atTime(12, 0));
+        return offset.getTotalSeconds() / 3600.0;
+    }
+}
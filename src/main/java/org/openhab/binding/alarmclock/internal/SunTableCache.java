@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.alarmclock.internal;
+
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The singleton SunTableCache holds the sun tables of things with their own location. Locations are rounded to a grid
+ * of 0.01 degree, so things at nearby coordinates share one table. The least recently used table is dropped when the
+ * cache is full.
+ *
+ * Tables are computed outside the lock, so handlers initializing in parallel compute tables of different cells at the
+ * same time, while handlers in the same cell share one computation.
+ *
+ * @author Wim Vissers - Initial contribution
+ */
+public class SunTableCache implements Constants {
+
+    private static final SunTableCache INSTANCE = new SunTableCache();
+
+    // The logger instance.
+    private final Logger logger = LoggerFactory.getLogger(SunTableCache.class);
+
+    // The tables in access order, guarded by this.
+    private final Map<Key, FutureTask<SunTable>> tables;
+
+    // Statistics, guarded by this.
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Singleton, so private constructor.
+     */
+    private SunTableCache() {
+        tables = new LinkedHashMap<Key, FutureTask<SunTable>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, FutureTask<SunTable>> eldest) {
+                if (size() > SUN_TABLE_CACHE_SIZE) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get the sun table for the grid cell of a location, computing it when not cached. Concurrent callers for the same
+     * cell wait for a single computation.
+     *
+     * @param latitude the latitude.
+     * @param longitude the longitude.
+     * @param zone the time zone.
+     * @param year the year.
+     * @return the table.
+     */
+    public SunTable get(double latitude, double longitude, ZoneId zone, int year) {
+        Key key = new Key((int) Math.round(latitude * SUN_TABLE_GRID), (int) Math.round(longitude * SUN_TABLE_GRID),
+                zone, year);
+        FutureTask<SunTable> task;
+        boolean compute = false;
+        synchronized (this) {
+            task = tables.get(key);
+            if (task != null) {
+                hits++;
+            } else {
+                misses++;
+                task = new FutureTask<>(() -> SunTable.compute((double) key.latitude / SUN_TABLE_GRID,
+                        (double) key.longitude / SUN_TABLE_GRID, zone, year));
+                tables.put(key, task);
+                compute = true;
+                logger.debug("Sun table cache miss, hits: {}, misses: {}, evictions: {}.", hits, misses, evictions);
+            }
+        }
+        if (compute) {
+            task.run();
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while computing sun table.", ex);
+        } catch (ExecutionException ex) {
+            synchronized (this) {
+                tables.remove(key, task);
+            }
+            throw new IllegalStateException("Unable to compute sun table.", ex.getCause());
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized int getSize() {
+        return tables.size();
+    }
+
+    /**
+     * Return the singleton instance.
+     *
+     * @return the singleton instance.
+     */
+    public static SunTableCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * The grid cell, time zone and year of a table.
+     *
+     * @author Wim Vissers.
+     *
+     */
+    private static class Key {
+        private final int latitude;
+        private final int longitude;
+        private final ZoneId zone;
+        private final int year;
+
+        public Key(int latitude, int longitude, ZoneId zone, int year) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.zone = zone;
+            this.year = year;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((latitude * 31 + longitude) * 31 + zone.hashCode()) * 31 + year;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return latitude == other.latitude && longitude == other.longitude && zone.equals(other.zone)
+                    && year == other.year;
+        }
+    }
+}
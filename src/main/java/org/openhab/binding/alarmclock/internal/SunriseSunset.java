@@ -8,10 +8,7 @@
  */
 package org.openhab.binding.alarmclock.internal;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.TimeZone;
 
 /******************************************************************************
  * class: SunriseSunset class
@@ -24,387 +21,362 @@ import java.util.TimeZone;
  * (i.e. latitude between -90 and +90, longitude between 0 and 360,
  * a valid date, and time zone between -14 and +14.
  *
+ * The calculation itself is done by the static solve methods, which work on
+ * primitives only and do not allocate. An instance wraps the result of a
+ * single solve for a date.
+ *
  * ----------------------------------------------------------------------------
  *
  *
  * @author Wim Vissers - Initial contribution
  */
-public class SunriseSunset {
-
-    // Declare and initialize variables
-    private double dfLat; // latitude from user
-    private double dfLon; // latitude from user
-    private Date dateInput; // date/time from user
-    private double dfTimeZone; // time zone from user
-
-    private Date dateSunrise; // date and time of sunrise
-    private Date dateSunset; // date and time of sunset
-    private boolean bSunriseToday = false; // flag for sunrise on this date
-    private boolean bSunsetToday = false; // flag for sunset on this date
-    private boolean bSunUpAllDay = false; // flag for sun up all day
-    private boolean bSunDownAllDay = false; // flag for sun down all day
-    private boolean bDaytime = false; // flag for daytime, given
-                                      // hour and min in dateInput
-    private boolean bSunrise = false; // sunrise during hour checked
-    private boolean bSunset = false; // sunset during hour checked
-    private boolean bGregorian = false; // flag for Gregorian calendar
-    private int iJulian; // Julian day
-    private int iYear; // year of date of interest
-    private int iMonth; // month of date of interest
-    private int iDay; // day of date of interest
-    private int iCount; // a simple counter
-    private int iSign; // SUNUP.BAS: S
-    private double dfHourRise, dfHourSet; // hour of event: SUNUP.BAS H3
-    private double dfMinRise, dfMinSet; // minute of event: SUNUP.BAS M3
-    private double dfSinLat, dfCosLat; // sin and cos of latitude
-    private double dfZenith; // SUNUP.BAS Z: Zenith
-    private SimpleDateFormat dfmtDateTime; // formatting for date and time
-    private SimpleDateFormat dfmtYear; // formatting for year
-    private SimpleDateFormat dfmtMonth; // formatting for month
-    private SimpleDateFormat dfmtDay; // formatting for day
-    // Many variables in SUNUP.BAS have undocumented meanings,
-    // and so are translated rather directly to avoid confusion:
-    private double dfAA1 = 0, dfAA2 = 0; // SUNUP.BAS A(2)
-    private double dfDD1 = 0, dfDD2 = 0; // SUNUP.BAS D(2)
-    private double dfC0; // SUNUP.BAS C0
-    private double dfK1; // SUNUP.BAS K1
-    private double dfP; // SUNUP.BAS P
-    private double dfJ; // SUNUP.BAS J
-    private double dfJ3; // SUNUP.BAS J3
-    private double dfA; // SUNUP.BAS A
-    private double dfA0, dfA2, dfA5; // SUNUP.BAS A0, A2, A5
-    private double dfD0, dfD1, dfD2, dfD5; // SUNUP.BAS D0, D1, D2, D5
-    private double dfDA, dfDD; // SUNUP.BAS DA, DD
-    private double dfH0, dfH1, dfH2; // SUNUP.BAS H0, H1, H2
-    private double dfL0, dfL2; // SUNUP.BAS L0, L2
-    private double dfT, dfT0, dfTT; // SUNUP.BAS T, T0, TT
-    private double dfV0, dfV1, dfV2; // SUNUP.BAS V0, V1, V2
-
-    private TimeZone tz = TimeZone.getTimeZone("GMT");
+public class SunriseSunset implements Constants {
+
+    // The official zenith of sunrise and sunset, corrected for refraction and the radius of the sun.
+    public static final double ZENITH_OFFICIAL = 90.833;
+
+    // Minute value returned when there is no event on the day.
+    public static final int NO_EVENT = -1;
+
+    // Layout of the packed result of solve.
+    private static final int MINUTE_MASK = 0xFFFF;
+    private static final int SUNRISE_SHIFT = 16;
+    private static final long SUN_UP_ALL_DAY = 1L << 32;
+    private static final long SUN_DOWN_ALL_DAY = 1L << 33;
+
+    // SUNUP.BAS numbers days from 2000-01-01 minus one, epoch day 0 is Julian day 2440587 in that count.
+    private static final double EPOCH_JULIAN = 2440587.0;
+
+    // SUNUP.BAS 330: the hourly advance of the sidereal time.
+    static final double K1 = 15.0 * 1.0027379 * Math.PI / 180.0;
+
+    private final Date dateInput; // date/time from user
+    private final Date dateSunrise; // date and time of sunrise
+    private final Date dateSunset; // date and time of sunset
+    private final boolean bSunriseToday; // flag for sunrise on this date
+    private final boolean bSunsetToday; // flag for sunset on this date
+    private final boolean bSunUpAllDay; // flag for sun up all day
+    private final boolean bSunDownAllDay; // flag for sun down all day
 
     /******************************************************************************
      * method: SunriseSunset
      *******************************************************************************
      *
-     * Constructor for SunriseSunset class.
+     * Constructor for SunriseSunset class. The date is taken in UTC, and the
+     * returned dates hold the times in the given time zone on that date.
      *
      * ----------------------------------------------------------------------------
      */
     public SunriseSunset(double dfLatIn, double dfLonIn, Date dateInputIn, double dfTimeZoneIn) {
-        // Copy values supplied as arguments to local variables.
-        dfLat = dfLatIn;
-        dfLon = dfLonIn;
         dateInput = dateInputIn;
-        dfTimeZone = dfTimeZoneIn;
+        long epochDay = Math.floorDiv(dateInputIn.getTime(), MILLIS_PER_DAY);
+        long solution = solve(dfLatIn, dfLonIn, epochDay, dfTimeZoneIn, ZENITH_OFFICIAL);
+        int sunrise = getSunrise(solution);
+        int sunset = getSunset(solution);
+        bSunriseToday = sunrise != NO_EVENT;
+        bSunsetToday = sunset != NO_EVENT;
+        bSunUpAllDay = isSunUpAllDay(solution);
+        bSunDownAllDay = isSunDownAllDay(solution);
+        dateSunrise = bSunriseToday ? new Date(epochDay * MILLIS_PER_DAY + sunrise * MILLIS_PER_MINUTE) : null;
+        dateSunset = bSunsetToday ? new Date(epochDay * MILLIS_PER_DAY + sunset * MILLIS_PER_MINUTE) : null;
+    } // end of class constructor
 
-        // Call the method to do the calculations.
-        doCalculations();
+    /******************************************************************************
+     * method: solve
+     *******************************************************************************
+     *
+     * Calculate the official sunrise and sunset in UTC on the given day.
+     *
+     * ----------------------------------------------------------------------------
+     */
+    public static long solve(double lat, double lon, long epochDay) {
+        return solve(lat, lon, epochDay, 0, ZENITH_OFFICIAL);
+    }
 
-    } // end of class constructor
+    /******************************************************************************
+     * method: solve
+     *******************************************************************************
+     *
+     * Perform the calculations done in SUNUP.BAS for the day epochDay in the
+     * time zone given as hours east of UTC, and the zenith in degrees. The
+     * result is packed in a long, use getSunrise, getSunset, isSunUpAllDay and
+     * isSunDownAllDay to read it. The times are minutes from the start of the
+     * day in the given time zone, and may be 1440 when the event is in the
+     * last half minute of the day.
+     *
+     * ----------------------------------------------------------------------------
+     */
+    public static long solve(double lat, double lon, long epochDay, double timeZone, double zenith) {
+        return solve(lat, lon, epochDay, timeZone, zenith, null, null);
+    }
 
     /******************************************************************************
-     * method: doCalculations
+     * method: solve
      *******************************************************************************
      *
-     * Method for performing the calculations done in SUNUP.BAS.
+     * Perform the calculations for several zeniths in a single pass. The sun's
+     * position and the altitude term of each hour are computed once, only the
+     * horizon test and interpolation are done per zenith. The packed result
+     * for zeniths[i] is stored in solutions[i].
      *
      * ----------------------------------------------------------------------------
      */
-    private void doCalculations() {
-        try {
-            // Break out day, month, and year from date provided.
-            // (This is necessary for the math algorithms.)
-
-            dfmtYear = new SimpleDateFormat("yyyy");
-            dfmtYear.setLenient(false);
-            dfmtYear.setTimeZone(tz);
-
-            dfmtMonth = new SimpleDateFormat("M");
-            dfmtMonth.setLenient(false);
-            dfmtMonth.setTimeZone(tz);
-
-            dfmtDay = new SimpleDateFormat("d");
-            dfmtDay.setLenient(false);
-            dfmtDay.setTimeZone(tz);
-
-            iYear = Integer.parseInt(dfmtYear.format(dateInput));
-            iMonth = Integer.parseInt(dfmtMonth.format(dateInput));
-            iDay = Integer.parseInt(dfmtDay.format(dateInput));
-
-            // Convert time zone hours to decimal days (SUNUP.BAS line 50)
-            dfTimeZone = dfTimeZone / 24.0;
-
-            // NOTE: (7 Feb 2001) Here is a non-standard part of SUNUP.BAS:
-            // It (and this algorithm) assumes that the time zone is
-            // positive west, instead of the standard negative west.
-            // Classes calling SunriseSunset will be assuming that
-            // times zones are specified in negative west, so here the
-            // sign is changed so that the SUNUP algorithm works:
-            dfTimeZone = -dfTimeZone;
-
-            // Convert longitude to fraction (SUNUP.BAS line 50)
-            dfLon = dfLon / 360.0;
-
-            // Convert calendar date to Julian date:
-            // Check to see if it's later than 1583: Gregorian calendar
-            // When declared, bGregorian is initialized to false.
-            // ** Consider making a separate class of this function. **
-            if (iYear >= 1583) {
-                bGregorian = true;
-            }
-            // SUNUP.BAS 1210
-            dfJ = -Math.floor(7.0 // SUNUP used INT, not floor
-                    * (Math.floor((iMonth + 9.0) / 12.0) + iYear) / 4.0)
-                    // add SUNUP.BAS 1240 and 1250 for G = 0
-                    + Math.floor(iMonth * 275.0 / 9.0) + iDay + 1721027.0 + iYear * 367.0;
-
-            if (bGregorian) {
-                // SUNUP.BAS 1230
-                if ((iMonth - 9.0) < 0.0) {
-                    iSign = -1;
-                } else {
-                    iSign = 1;
-                }
-                dfA = Math.abs(iMonth - 9.0);
-                // SUNUP.BAS 1240 and 1250
-                dfJ3 = -Math
-                        .floor((Math.floor(Math.floor(iYear + iSign * Math.floor(dfA / 7.0)) / 100.0) + 1.0) * 0.75);
-                // correct dfJ as in SUNUP.BAS 1240 and 1250 for G = 1
-                dfJ = dfJ + dfJ3 + 2.0;
-            }
-            // SUNUP.BAS 1290
-            iJulian = (int) dfJ - 1;
-
-            // SUNUP.BAS 60 and 70 (see also line 1290)
-            dfT = iJulian - 2451545.0 + 0.5;
-            dfTT = dfT / 36525.0 + 1.0; // centuries since 1900
-
-            // Calculate local sidereal time at 0h in zone time
-            // SUNUP.BAS 410 through 460
-            dfT0 = (dfT * 8640184.813 / 36525.0 + 24110.5 + dfTimeZone * 86636.6 + dfLon * 86400.0) / 86400.0;
-            dfT0 = dfT0 - Math.floor(dfT0); // NOTE: SUNUP.BAS uses INT()
-            dfT0 = dfT0 * 2.0 * Math.PI;
-            // SUNUP.BAS 90
-            dfT = dfT + dfTimeZone;
-
-            // SUNUP.BAS 110: Get Sun's position
-            for (iCount = 0; iCount <= 1; iCount++) // Loop thru only twice
-            {
-                // Calculate Sun's right ascension and declination
-                // at the start and end of each day.
-                // SUNUP.BAS 910 - 1160: Fundamental arguments
-                // from van Flandern and Pulkkinen, 1979
-
-                // declare local temporary doubles for calculations
-                double dfGG; // SUNUP.BAS G
-                double dfLL; // SUNUP.BAS L
-                double dfSS; // SUNUP.BAS S
-                double dfUU; // SUNUP.BAS U
-                double dfVV; // SUNUP.BAS V
-                double dfWW; // SUNUP.BAS W
-
-                dfLL = 0.779072 + 0.00273790931 * dfT;
-                dfLL = dfLL - Math.floor(dfLL);
-                dfLL = dfLL * 2.0 * Math.PI;
-
-                dfGG = 0.993126 + 0.0027377785 * dfT;
-                dfGG = dfGG - Math.floor(dfGG);
-                dfGG = dfGG * 2.0 * Math.PI;
-
-                dfVV = 0.39785 * Math.sin(dfLL) - 0.01000 * Math.sin(dfLL - dfGG) + 0.00333 * Math.sin(dfLL + dfGG)
-                        - 0.00021 * Math.sin(dfLL) * dfTT;
-
-                dfUU = 1 - 0.03349 * Math.cos(dfGG) - 0.00014 * Math.cos(dfLL * 2.0) + 0.00008 * Math.cos(dfLL);
-
-                dfWW = -0.00010 - 0.04129 * Math.sin(dfLL * 2.0) + 0.03211 * Math.sin(dfGG)
-                        - 0.00104 * Math.sin(2.0 * dfLL - dfGG) - 0.00035 * Math.sin(2.0 * dfLL + dfGG)
-                        - 0.00008 * Math.sin(dfGG) * dfTT;
-
-                // Compute Sun's RA and Dec; SUNUP.BAS 1120 - 1140
-                dfSS = dfWW / Math.sqrt(dfUU - dfVV * dfVV);
-                dfA5 = dfLL + Math.atan(dfSS / Math.sqrt(1.0 - dfSS * dfSS));
-
-                dfSS = dfVV / Math.sqrt(dfUU);
-                dfD5 = Math.atan(dfSS / Math.sqrt(1 - dfSS * dfSS));
-
-                // Set values and increment t
-                if (iCount == 0) // SUNUP.BAS 125
-                {
-                    dfAA1 = dfA5;
-                    dfDD1 = dfD5;
-                } else // SUNUP.BAS 145
-                {
-                    dfAA2 = dfA5;
-                    dfDD2 = dfD5;
-                }
-                dfT = dfT + 1.0; // SUNUP.BAS 130
-            } // end of Get Sun's Position for loop
+    public static void solve(double lat, double lon, long epochDay, double timeZone, double[] zeniths,
+            long[] solutions) {
+        solve(lat, lon, epochDay, timeZone, 0.0, zeniths, solutions);
+    }
 
-            if (dfAA2 < dfAA1) {
-                dfAA2 = dfAA2 + 2.0 * Math.PI;
-                // SUNUP.BAS 150
-            }
+    /******************************************************************************
+     * method: solve
+     *******************************************************************************
+     *
+     * The calculation shared by both public solve methods. When zeniths is
+     * null, only the single zenith is solved and its packed result is
+     * returned, without touching any array. Otherwise the results for
+     * zeniths are stored in solutions, and the return value is undefined.
+     *
+     * ----------------------------------------------------------------------------
+     */
+    private static long solve(double lat, double lon, long epochDay, double timeZone, double zenith,
+            double[] zeniths, long[] solutions) {
+        int count = zeniths == null ? 1 : zeniths.length;
+        long single = packMinutes(NO_EVENT, NO_EVENT);
+
+        // Convert time zone hours to decimal days, positive west (SUNUP.BAS line 50)
+        double dfTimeZone = -timeZone / 24.0;
+
+        // Convert longitude to fraction (SUNUP.BAS line 50)
+        double dfLon = lon / 360.0;
+
+        // SUNUP.BAS 60 and 70 (see also line 1290)
+        double dfT = EPOCH_JULIAN + epochDay - 2451545.0 + 0.5;
+        double dfTT = dfT / 36525.0 + 1.0; // centuries since 1900
+
+        // Calculate local sidereal time at 0h in zone time
+        // SUNUP.BAS 410 through 460
+        double dfT0 = (dfT * 8640184.813 / 36525.0 + 24110.5 + dfTimeZone * 86636.6 + dfLon * 86400.0) / 86400.0;
+        dfT0 = dfT0 - Math.floor(dfT0); // NOTE: SUNUP.BAS uses INT()
+        dfT0 = dfT0 * 2.0 * Math.PI;
+        // SUNUP.BAS 90
+        dfT = dfT + dfTimeZone;
+
+        // SUNUP.BAS 110: Get Sun's position at the start and end of the day
+        double dfAA1 = rightAscension(dfT, dfTT);
+        double dfDD1 = declination(dfT, dfTT);
+        double dfAA2 = rightAscension(dfT + 1.0, dfTT);
+        double dfDD2 = declination(dfT + 1.0, dfTT);
+
+        if (dfAA2 < dfAA1) {
+            dfAA2 = dfAA2 + 2.0 * Math.PI;
+            // SUNUP.BAS 150
+        }
+
+        double dfSinLat = Math.sin(lat * Math.PI / 180.0); // SUNUP.BAS 170
+        double dfCosLat = Math.cos(lat * Math.PI / 180.0); // SUNUP.BAS 170
+
+        double dfA0 = dfAA1; // SUNUP.BAS 190
+        double dfD0 = dfDD1; // SUNUP.BAS 190
+        double dfDA = dfAA2 - dfAA1; // SUNUP.BAS 200
+        double dfDD = dfDD2 - dfDD1; // SUNUP.BAS 200
 
-            dfZenith = Math.PI * 90.833 / 180.0; // SUNUP.BAS 160
-            dfSinLat = Math.sin(dfLat * Math.PI / 180.0); // SUNUP.BAS 170
-            dfCosLat = Math.cos(dfLat * Math.PI / 180.0); // SUNUP.BAS 170
-
-            dfA0 = dfAA1; // SUNUP.BAS 190
-            dfD0 = dfDD1; // SUNUP.BAS 190
-            dfDA = dfAA2 - dfAA1; // SUNUP.BAS 200
-            dfDD = dfDD2 - dfDD1; // SUNUP.BAS 200
-
-            dfK1 = 15.0 * 1.0027379 * Math.PI / 180.0; // SUNUP.BAS 330
-
-            // Initialize sunrise and sunset times, and other variables
-            // hr and min are set to impossible times to make errors obvious
-            dfHourRise = 99.0;
-            dfMinRise = 99.0;
-            dfHourSet = 99.0;
-            dfMinSet = 99.0;
-            dfV0 = 0.0; // initialization implied by absence in SUNUP.BAS
-            dfV2 = 0.0; // initialization implied by absence in SUNUP.BAS
-
-            // Test each hour to see if the Sun crosses the horizon
-            // and which way it is heading.
-            for (iCount = 0; iCount < 24; iCount++) // SUNUP.BAS 210
+        // The solutions hold the sunrise and sunset minutes while iterating.
+        for (int z = 0; zeniths != null && z < count; z++) {
+            solutions[z] = single;
+        }
+
+        // The altitude term without the zenith, SUNUP.BAS 560 and 570 without - cos(Z).
+        double dfU0;
+        double dfU2 = 0.0;
+
+        // Test each hour to see if the Sun crosses the horizon
+        // and which way it is heading.
+        for (int iCount = 0; iCount < 24; iCount++) // SUNUP.BAS 210
+        {
+            double dfC0 = iCount;
+            double dfP = (dfC0 + 1.0) / 24.0; // SUNUP.BAS 220
+            double dfA2 = dfAA1 + dfP * dfDA; // SUNUP.BAS 230
+            double dfD2 = dfDD1 + dfP * dfDD; // SUNUP.BAS 230
+            double dfL0 = dfT0 + dfC0 * K1; // SUNUP.BAS 500
+            double dfL2 = dfL0 + K1; // SUNUP.BAS 500
+            double dfH0 = dfL0 - dfA0; // SUNUP.BAS 510
+            double dfH2 = dfL2 - dfA2; // SUNUP.BAS 510
+            // hour angle at half hour
+            double dfH1 = (dfH2 + dfH0) / 2.0; // SUNUP.BAS 520
+            // declination at half hour
+            double dfD1 = (dfD2 + dfD0) / 2.0; // SUNUP.BAS 530
+
+            // Set value of dfU0 only if this is the first hour,
+            // otherwise, it will get set to the last dfU2 (SUNUP.BAS 250)
+            if (iCount == 0) // SUNUP.BAS 550
             {
-                double tempA; // SUNUP.BAS A
-                double tempB; // SUNUP.BAS B
-                double tempD; // SUNUP.BAS D
-                double tempE; // SUNUP.BAS E
-
-                dfC0 = iCount;
-                dfP = (dfC0 + 1.0) / 24.0; // SUNUP.BAS 220
-                dfA2 = dfAA1 + dfP * dfDA; // SUNUP.BAS 230
-                dfD2 = dfDD1 + dfP * dfDD; // SUNUP.BAS 230
-                dfL0 = dfT0 + dfC0 * dfK1; // SUNUP.BAS 500
-                dfL2 = dfL0 + dfK1; // SUNUP.BAS 500
-                dfH0 = dfL0 - dfA0; // SUNUP.BAS 510
-                dfH2 = dfL2 - dfA2; // SUNUP.BAS 510
-                // hour angle at half hour
-                dfH1 = (dfH2 + dfH0) / 2.0; // SUNUP.BAS 520
-                // declination at half hour
-                dfD1 = (dfD2 + dfD0) / 2.0; // SUNUP.BAS 530
-
-                // Set value of dfV0 only if this is the first hour,
-                // otherwise, it will get set to the last dfV2 (SUNUP.BAS 250)
-                if (iCount == 0) // SUNUP.BAS 550
-                {
-                    dfV0 = dfSinLat * Math.sin(dfD0) + dfCosLat * Math.cos(dfD0) * Math.cos(dfH0) - Math.cos(dfZenith); // SUNUP.BAS
-                                                                                                                        // 560
-                } else {
-                    dfV0 = dfV2; // That is, dfV2 from the previous hour.
-                }
+                dfU0 = dfSinLat * Math.sin(dfD0) + dfCosLat * Math.cos(dfD0) * Math.cos(dfH0);
+            } else {
+                dfU0 = dfU2; // That is, dfU2 from the previous hour.
+            }
+            dfU2 = dfSinLat * Math.sin(dfD2) + dfCosLat * Math.cos(dfD2) * Math.cos(dfH2);
+
+            // The half hour term is computed only when a zenith is crossed.
+            double dfU1 = Double.NaN;
+
+            for (int z = 0; z < count; z++) {
+                double zenithZ = zeniths == null ? zenith : zeniths[z];
+                double cosZenith = Math.cos(Math.PI * zenithZ / 180.0); // SUNUP.BAS 160
+                double dfV0 = dfU0 - cosZenith;
+                double dfV2 = dfU2 - cosZenith;
 
-                dfV2 = dfSinLat * Math.sin(dfD2) + dfCosLat * Math.cos(dfD2) * Math.cos(dfH2) - Math.cos(dfZenith); // SUNUP.BAS
-                                                                                                                    // 570
-
-                // if dfV0 and dfV2 have the same sign, then proceed to next hr
-                if ((dfV0 >= 0.0 && dfV2 >= 0.0) // both are positive
-                        || // or
-                        (dfV0 < 0.0 && dfV2 < 0.0) // both are negative
-                ) {
-                    // Break iteration and proceed to test next hour
-                    dfA0 = dfA2; // SUNUP.BAS 250
-                    dfD0 = dfD2; // SUNUP.BAS 250
+                // if dfV0 and dfV2 have the same sign, then proceed to next zenith
+                if ((dfV0 >= 0.0) == (dfV2 >= 0.0)) {
                     continue; // SUNUP.BAS 610
                 }
 
-                dfV1 = dfSinLat * Math.sin(dfD1) + dfCosLat * Math.cos(dfD1) * Math.cos(dfH1) - Math.cos(dfZenith); // SUNUP.BAS
-                                                                                                                    // 590
+                if (Double.isNaN(dfU1)) {
+                    dfU1 = dfSinLat * Math.sin(dfD1) + dfCosLat * Math.cos(dfD1) * Math.cos(dfH1); // SUNUP.BAS 590
+                }
+                double dfV1 = dfU1 - cosZenith;
 
-                tempA = 2.0 * dfV2 - 4.0 * dfV1 + 2.0 * dfV0;
-                // SUNUP.BAS 600
-                tempB = 4.0 * dfV1 - 3.0 * dfV0 - dfV2; // SUNUP.BAS 600
-                tempD = tempB * tempB - 4.0 * tempA * dfV0; // SUNUP.BAS 610
+                double tempA = 2.0 * dfV2 - 4.0 * dfV1 + 2.0 * dfV0; // SUNUP.BAS 600
+                double tempB = 4.0 * dfV1 - 3.0 * dfV0 - dfV2; // SUNUP.BAS 600
+                double tempD = tempB * tempB - 4.0 * tempA * dfV0; // SUNUP.BAS 610
 
                 if (tempD < 0.0) {
-                    // Break iteration and proceed to test next hour
-                    dfA0 = dfA2; // SUNUP.BAS 250
-                    dfD0 = dfD2; // SUNUP.BAS 250
                     continue; // SUNUP.BAS 610
                 }
 
                 tempD = Math.sqrt(tempD); // SUNUP.BAS 620
 
-                // Determine occurence of sunrise or sunset.
+                double tempE = (tempD - tempB) / (2.0 * tempA);
+                if (tempE > 1.0 || tempE < 0.0) {
+                    tempE = (-tempD - tempB) / (2.0 * tempA);
+                }
+
+                // Hour and minute of the event, the last one of the day wins.
+                double hour = Math.floor(dfC0 + tempE + 1.0 / 120.0);
+                int minuteOfDay = (int) hour * 60 + (int) Math.floor((dfC0 + tempE + 1.0 / 120.0 - hour) * 60.0);
+                long solution = zeniths == null ? single : solutions[z];
+                if (dfV0 < 0.0 && dfV2 > 0.0) {
+                    solution = packMinutes(minuteOfDay, getSunset(solution)); // SUNUP.BAS 640
+                } else if (dfV0 > 0.0 && dfV2 < 0.0) {
+                    solution = packMinutes(getSunrise(solution), minuteOfDay); // SUNUP.BAS 660
+                }
+                if (zeniths == null) {
+                    single = solution;
+                } else {
+                    solutions[z] = solution;
+                }
+            }
 
-                // Flags to identify occurrence during this day are
-                // bSunriseToday and bSunsetToday, and are initialized false.
-                // These are set true only if sunrise or sunset occurs
-                // at any point in the hourly loop. Never set to false.
+            // Change settings of variables for next loop
+            dfA0 = dfA2; // SUNUP.BAS 250
+            dfD0 = dfD2; // SUNUP.BAS 250
+        } // end of loop testing each hour for an event
 
-                // Flags to identify occurrence during this hour:
-                bSunrise = false; // reset before test
-                bSunset = false; // reset before test
+        for (int z = 0; z < count; z++) {
+            long solution = zeniths == null ? single : solutions[z];
+            double zenithZ = zeniths == null ? zenith : zeniths[z];
+            if (getSunrise(solution) == NO_EVENT && getSunset(solution) == NO_EVENT) {
+                solution |= dfU2 - Math.cos(Math.PI * zenithZ / 180.0) < 0.0 ? SUN_DOWN_ALL_DAY : SUN_UP_ALL_DAY;
+            }
+            if (zeniths == null) {
+                single = solution;
+            } else {
+                solutions[z] = solution;
+            }
+        }
+        return single;
+    }
 
-                if (dfV0 < 0.0 && dfV2 > 0.0) // sunrise occurs this hour
-                {
-                    bSunrise = true; // SUNUP.BAS 640
-                    bSunriseToday = true; // sunrise occurred today
-                }
+    /**
+     * Pack the minutes of the sunrise and sunset, without flags.
+     */
+    private static long packMinutes(int sunrise, int sunset) {
+        return (long) (sunrise & MINUTE_MASK) << SUNRISE_SHIFT | (sunset & MINUTE_MASK);
+    }
 
-                if (dfV0 > 0.0 && dfV2 < 0.0) // sunset occurs this hour
-                {
-                    bSunset = true; // SUNUP.BAS 660
-                    bSunsetToday = true; // sunset occurred today
-                }
+    /******************************************************************************
+     * method: rightAscension, declination
+     *******************************************************************************
+     *
+     * The Sun's right ascension and declination at time dfT.
+     * SUNUP.BAS 910 - 1160: Fundamental arguments
+     * from van Flandern and Pulkkinen, 1979
+     *
+     * ----------------------------------------------------------------------------
+     */
+    static double rightAscension(double dfT, double dfTT) {
+        double dfLL = fundamentalL(dfT);
+        double dfGG = fundamentalG(dfT);
+        double dfVV = fundamentalV(dfLL, dfGG, dfTT);
+        double dfUU = fundamentalU(dfLL, dfGG);
+        double dfWW = -0.00010 - 0.04129 * Math.sin(dfLL * 2.0) + 0.03211 * Math.sin(dfGG)
+                - 0.00104 * Math.sin(2.0 * dfLL - dfGG) - 0.00035 * Math.sin(2.0 * dfLL + dfGG)
+                - 0.00008 * Math.sin(dfGG) * dfTT;
+
+        // SUNUP.BAS 1120 - 1140
+        double dfSS = dfWW / Math.sqrt(dfUU - dfVV * dfVV);
+        return dfLL + Math.atan(dfSS / Math.sqrt(1.0 - dfSS * dfSS));
+    }
 
-                tempE = (tempD - tempB) / (2.0 * tempA);
-                if (tempE > 1.0 || tempE < 0.0) {
-                    tempE = (-tempD - tempB) / (2.0 * tempA);
-                }
+    static double declination(double dfT, double dfTT) {
+        double dfLL = fundamentalL(dfT);
+        double dfGG = fundamentalG(dfT);
+        double dfSS = fundamentalV(dfLL, dfGG, dfTT) / Math.sqrt(fundamentalU(dfLL, dfGG));
+        return Math.atan(dfSS / Math.sqrt(1 - dfSS * dfSS));
+    }
 
-                // Set values of hour and minute of sunset or sunrise
-                // only if sunrise/set occurred this hour.
-                if (bSunrise) {
-                    dfHourRise = Math.floor(dfC0 + tempE + 1.0 / 120.0);
-                    dfMinRise = Math.floor((dfC0 + tempE + 1.0 / 120.0 - dfHourRise) * 60.0);
-                }
+    private static double fundamentalL(double dfT) {
+        double dfLL = 0.779072 + 0.00273790931 * dfT;
+        return (dfLL - Math.floor(dfLL)) * 2.0 * Math.PI;
+    }
 
-                if (bSunset) {
-                    dfHourSet = Math.floor(dfC0 + tempE + 1.0 / 120.0);
-                    dfMinSet = Math.floor((dfC0 + tempE + 1.0 / 120.0 - dfHourSet) * 60.0);
-                }
+    private static double fundamentalG(double dfT) {
+        double dfGG = 0.993126 + 0.0027377785 * dfT;
+        return (dfGG - Math.floor(dfGG)) * 2.0 * Math.PI;
+    }
 
-                // Change settings of variables for next loop
-                dfA0 = dfA2; // SUNUP.BAS 250
-                dfD0 = dfD2; // SUNUP.BAS 250
+    private static double fundamentalV(double dfLL, double dfGG, double dfTT) {
+        return 0.39785 * Math.sin(dfLL) - 0.01000 * Math.sin(dfLL - dfGG) + 0.00333 * Math.sin(dfLL + dfGG)
+                - 0.00021 * Math.sin(dfLL) * dfTT;
+    }
 
-            } // end of loop testing each hour for an event
+    private static double fundamentalU(double dfLL, double dfGG) {
+        return 1 - 0.03349 * Math.cos(dfGG) - 0.00014 * Math.cos(dfLL * 2.0) + 0.00008 * Math.cos(dfLL);
+    }
 
-            // After having checked all hours, set flags if no rise or set
-            // bSunUpAllDay and bSundownAllDay are initialized as false
-            if (!bSunriseToday && !bSunsetToday) {
-                if (dfV2 < 0.0) {
-                    bSunDownAllDay = true;
-                } else {
-                    bSunUpAllDay = true;
-                }
-            }
+    /******************************************************************************
+     * method: getSunrise(long), getSunset(long)
+     *******************************************************************************
+     *
+     * Get the minute of the sunrise or sunset from a packed solution, or
+     * NO_EVENT if there is none.
+     *
+     * ----------------------------------------------------------------------------
+     */
+    public static int getSunrise(long solution) {
+        return unpackMinute((int) (solution >>> SUNRISE_SHIFT) & MINUTE_MASK);
+    }
 
-            // Load dateSunrise with data
-            dfmtDateTime = new SimpleDateFormat("d M yyyy HH:mm z");
-            if (bSunriseToday) {
-                dateSunrise = dfmtDateTime.parse(
-                        iDay + " " + iMonth + " " + iYear + " " + (int) dfHourRise + ":" + (int) dfMinRise + " GMT");
-            }
+    public static int getSunset(long solution) {
+        return unpackMinute((int) solution & MINUTE_MASK);
+    }
 
-            // Load dateSunset with data
-            if (bSunsetToday) {
-                dateSunset = dfmtDateTime.parse(
-                        iDay + " " + iMonth + " " + iYear + " " + (int) dfHourSet + ":" + (int) dfMinSet + " GMT");
-            }
-        } // end of try
+    private static int unpackMinute(int minute) {
+        return minute == MINUTE_MASK ? NO_EVENT : minute;
+    }
 
-        // Catch errors
-        catch (ParseException e) {
-            System.out.println("\nCannot parse date");
-            System.out.println(e);
-            System.exit(1);
-        } // end of catch
+    /******************************************************************************
+     * method: isSunUpAllDay(long), isSunDownAllDay(long)
+     *******************************************************************************
+     *
+     * Returns whether the sun is up or down all day in a packed solution.
+     *
+     * ----------------------------------------------------------------------------
+     */
+    public static boolean isSunUpAllDay(long solution) {
+        return (solution & SUN_UP_ALL_DAY) != 0;
+    }
 
+    public static boolean isSunDownAllDay(long solution) {
+        return (solution & SUN_DOWN_ALL_DAY) != 0;
     }
 
     /******************************************************************************
@@ -514,6 +486,7 @@ public class SunriseSunset {
         // Determine if it is daytime (at sunrise or later)
         // or nighttime (at sunset or later) at the location of interest
         // but expressed in the time zone requested.
+        boolean bDaytime;
         if (bSunriseToday && bSunsetToday) // sunrise and sunset
         {
             if (dateSunrise.before(dateSunset)) // sunrise < sunset
@@ -8,8 +8,11 @@
  */
 package org.openhab.binding.alarmclock.internal;
 
+import java.time.ZoneId;
 import java.util.Locale;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import org.eclipse.smarthome.core.i18n.LocaleProvider;
 import org.eclipse.smarthome.core.i18n.LocationProvider;
@@ -17,35 +20,96 @@ import org.eclipse.smarthome.core.i18n.TimeZoneProvider;
 import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.library.types.PointType;
 import org.eclipse.smarthome.core.library.types.StringType;
-import org.osgi.framework.Bundle;
-import org.osgi.framework.BundleContext;
-import org.osgi.framework.FrameworkUtil;
 
 /**
- * The DayOfWeek enum is used for setting the alarm clock auto enable/disable
- * dependent of the day of the week.
+ * The SystemHelper gives access to the system locale, time zone and location.
+ *
+ * The values are kept in an immutable snapshot, that is only replaced by {@link #refresh()} when one of the providers
+ * reports a different value. Reading the values never queries the providers. Listeners are notified when the time
+ * zone or location changed.
+ *
+ * The providers are bound and unbound as declarative services by the {@link AlarmClockHandlerFactory}, so the OSGi
+ * service registry is never queried from here.
  *
  * @author Wim Vissers - Initial contribution
  */
 public class SystemHelper {
 
-    private static LocaleProvider localeProvider;
-    private static LocationProvider locationProvider;
-    private static TimeZoneProvider timeZoneProvider;
+    private static volatile LocaleProvider localeProvider;
+    private static volatile LocationProvider locationProvider;
+    private static volatile TimeZoneProvider timeZoneProvider;
     private static final PointType DEFAULT_LOCATION = new PointType(new DecimalType(51.9166667), new DecimalType(4.5));
 
+    // The current snapshot of the settings.
+    private static volatile Settings settings;
+
+    // The listeners to notify after the time zone or location changed.
+    private static final Set<Runnable> changeListeners = new CopyOnWriteArraySet<>();
+
+    /**
+     * Set the locale provider, when the service becomes available.
+     *
+     * @param provider the provider.
+     */
+    public static void setLocaleProvider(LocaleProvider provider) {
+        localeProvider = provider;
+        refresh();
+    }
+
+    /**
+     * Unset the locale provider, when the service is no longer available.
+     *
+     * @param provider the provider.
+     */
+    public static void unsetLocaleProvider(LocaleProvider provider) {
+        if (localeProvider == provider) {
+            localeProvider = null;
+            refresh();
+        }
+    }
+
+    /**
+     * Set the location provider, when the service becomes available.
+     *
+     * @param provider the provider.
+     */
+    public static void setLocationProvider(LocationProvider provider) {
+        locationProvider = provider;
+        refresh();
+    }
+
     /**
-     * Get the providers for the services and store for future reference.
+     * Unset the location provider, when the service is no longer available.
+     *
+     * @param provider the provider.
+     */
+    public static void unsetLocationProvider(LocationProvider provider) {
+        if (locationProvider == provider) {
+            locationProvider = null;
+            refresh();
+        }
+    }
+
+    /**
+     * Set the time zone provider, when the service becomes available.
+     *
+     * @param provider the provider.
+     */
+    public static void setTimeZoneProvider(TimeZoneProvider provider) {
+        timeZoneProvider = provider;
+        refresh();
+    }
+
+    /**
+     * Unset the time zone provider, when the service is no longer available.
+     *
+     * @param provider the provider.
      */
-    private static void getProviders() {
-        Bundle bundle = FrameworkUtil.getBundle(LocaleProvider.class);
-        BundleContext context = bundle.getBundleContext();
-        localeProvider = (LocaleProvider) context
-                .getService(context.getServiceReference(LocaleProvider.class.getName()));
-        locationProvider = (LocationProvider) context
-                .getService(context.getServiceReference(LocationProvider.class.getName()));
-        timeZoneProvider = (TimeZoneProvider) context
-                .getService(context.getServiceReference(TimeZoneProvider.class.getName()));
+    public static void unsetTimeZoneProvider(TimeZoneProvider provider) {
+        if (timeZoneProvider == provider) {
+            timeZoneProvider = null;
+            refresh();
+        }
     }
 
     /**
@@ -56,57 +120,146 @@ public class SystemHelper {
      * @return
      */
     public static StringType formatTime(int h, int m) {
-        return new StringType(("" + (100 + h)).substring(1) + ":" + ("" + (100 + m)).substring(1));
+        return StateCache.getTime(h * 60 + m);
     }
 
     /**
-     * Get the Locale. Try the Eclipse smarthome system setting, or if
-     * there is no provider service, the system default.
+     * Read the settings from the providers and replace the snapshot when one of them changed. Try the Eclipse
+     * smarthome system settings, or if there is no provider service, the system default. The change listeners are
+     * called after the time zone or location changed, outside the lock.
      *
-     * @return the Locale.
+     * @return true when the settings changed.
      */
-    public static Locale getLocale() {
-        if (localeProvider == null) {
-            getProviders();
+    public static boolean refresh() {
+        Settings previous;
+        Settings next;
+        synchronized (SystemHelper.class) {
+            LocaleProvider localeProvider = SystemHelper.localeProvider;
+            TimeZoneProvider timeZoneProvider = SystemHelper.timeZoneProvider;
+            LocationProvider locationProvider = SystemHelper.locationProvider;
+            Locale locale = localeProvider != null ? localeProvider.getLocale() : Locale.getDefault();
+            ZoneId zoneId = timeZoneProvider != null ? timeZoneProvider.getTimeZone() : ZoneId.systemDefault();
+            PointType location = locationProvider != null ? locationProvider.getLocation() : null;
+            if (location == null) {
+                location = DEFAULT_LOCATION;
+            }
+
+            previous = settings;
+            if (previous != null && previous.locale.equals(locale) && previous.zoneId.equals(zoneId)
+                    && previous.location.equals(location)) {
+                return false;
+            }
+            // Localize the day names before publishing the new version, so caches keyed by version are consistent.
+            if (previous != null && !previous.locale.equals(locale)) {
+                DayOfWeek.setLocale(locale);
+            }
+            next = new Settings(locale, zoneId, location, previous == null ? 1 : previous.version + 1);
+            settings = next;
         }
-        if (localeProvider != null) {
-            return localeProvider.getLocale();
-        } else {
-            return Locale.getDefault();
+        if (previous != null && (!previous.zoneId.equals(next.zoneId) || !previous.location.equals(next.location))) {
+            for (Runnable listener : changeListeners) {
+                listener.run();
+            }
         }
+        return true;
     }
 
     /**
-     * Get the TimeZone. Try the Eclipse smarthome system setting, or if
-     * there is no provider service, the system default.
+     * Add a listener to call after the time zone or location changed.
+     *
+     * @param listener the listener.
+     */
+    public static void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Remove a listener added before.
+     *
+     * @param listener the listener.
+     */
+    public static void removeChangeListener(Runnable listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Get the current snapshot, reading the providers only the first time.
+     *
+     * @return the settings.
+     */
+    private static Settings getSettings() {
+        Settings current = settings;
+        if (current == null) {
+            refresh();
+            current = settings;
+        }
+        return current;
+    }
+
+    /**
+     * Get the version of the settings, incremented whenever one of them changed.
+     *
+     * @return the version.
+     */
+    public static long getVersion() {
+        return getSettings().version;
+    }
+
+    /**
+     * Get the Locale.
+     *
+     * @return the Locale.
+     */
+    public static Locale getLocale() {
+        return getSettings().locale;
+    }
+
+    /**
+     * Get the ZoneId.
+     *
+     * @return the ZoneId.
+     */
+    public static ZoneId getZoneId() {
+        return getSettings().zoneId;
+    }
+
+    /**
+     * Get the TimeZone.
      *
      * @return the TimeZone.
      */
     public static TimeZone getTimeZone() {
-        if (timeZoneProvider == null) {
-            getProviders();
-        }
-        if (timeZoneProvider != null) {
-            return TimeZone.getTimeZone(timeZoneProvider.getTimeZone());
-        } else {
-            return TimeZone.getDefault();
-        }
+        return getSettings().timeZone;
     }
 
     /**
-     * Get the Location. Try the Eclipse smarthome system setting, or if
-     * there is no provider service, the system default.
+     * Get the Location.
      *
      * @return the Location.
      */
     public static PointType getLocation() {
-        if (locationProvider == null) {
-            getProviders();
-        }
-        if (locationProvider != null && locationProvider.getLocation() != null) {
-            return locationProvider.getLocation();
-        } else {
-            return DEFAULT_LOCATION;
+        return getSettings().location;
+    }
+
+    /**
+     * Immutable snapshot of the system settings.
+     *
+     * @author Wim Vissers.
+     *
+     */
+    private static class Settings {
+        private final Locale locale;
+        private final ZoneId zoneId;
+        private final TimeZone timeZone;
+        private final PointType location;
+        private final long version;
+
+        public Settings(Locale locale, ZoneId zoneId, PointType location, long version) {
+            this.locale = locale;
+            this.zoneId = zoneId;
+            this.timeZone = TimeZone.getTimeZone(zoneId);
+            this.location = location;
+            this.version = version;
         }
     }
 }
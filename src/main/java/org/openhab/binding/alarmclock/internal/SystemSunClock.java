@@ -8,32 +8,30 @@
  */
 package org.openhab.binding.alarmclock.internal;
 
-import java.util.Calendar;
-import java.util.Date;
-import java.util.TimeZone;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.smarthome.core.library.types.PointType;
-import org.eclipse.smarthome.core.library.types.StringType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * The System Sun clock, initialized with system location and time zone.
  *
+ * The sun times are published as an immutable, versioned SunSchedule. Only one thread recalculates at a time, readers
+ * never lock.
+ *
  * @author Wim Vissers - Initial contribution
  */
 public class SystemSunClock {
 
-    private static final long REFRESH_INTERVAL = 1000 * 3600 * 6;
-    private SunriseSunset sunriseSunset;
-    private Date lastInit;
-    private PointType location;
-    private TimeZone timeZone;
-    private StringType sunrise;
-    private StringType sunset;
+    // The sun table of the system location, only used while holding the lock.
+    private SunTable sunTable;
+
+    // The current snapshot.
+    private final AtomicReference<SunSchedule> schedule = new AtomicReference<>();
+
     private final Logger logger = LoggerFactory.getLogger(SystemSunClock.class);
 
     private SystemSunClock() {
@@ -54,58 +52,44 @@ public class SystemSunClock {
     }
 
     /**
-     * Reinitialize the clock when the refresh interval is exceeded or forced
-     * by change of location or time zone.
+     * Look up the sun events of today in the sun table, and publish a new snapshot with the fitted sun position when
+     * they changed. The table is opened again when the location, time zone or year changed.
      */
     public synchronized void reCalculate() {
-
-        // Check if the time zone is changed
-        TimeZone newTimeZone = SystemHelper.getTimeZone();
-        boolean force = timeZone == null || !newTimeZone.getDisplayName().equals(timeZone.getDisplayName());
-        timeZone = newTimeZone;
-
-        // Check if the system location changed
-        PointType newLocation = SystemHelper.getLocation();
-        force = force || location == null || newLocation.distanceFrom(location).intValue() > 100;
-        location = newLocation;
-
-        // Current date and time
-        Date now = Calendar.getInstance(timeZone).getTime();
-
-        if (force || sunriseSunset == null || (now.getTime() - lastInit.getTime()) > REFRESH_INTERVAL) {
-            sunriseSunset = new SunriseSunset(location.getLatitude().doubleValue(),
-                    location.getLongitude().doubleValue(), now, 0);
-            lastInit = now;
-            SunriseSunset sunriseSunset = getSunriseSunset();
-            Date currentSunrise = sunriseSunset.getSunrise();
-
-            Calendar calendar = Calendar.getInstance(timeZone); // creates a new calendar instance
-            calendar.setTime(currentSunrise); // assigns calendar to given date
-            sunrise = SystemHelper.formatTime(calendar.get(Calendar.HOUR_OF_DAY), calendar.get(Calendar.MINUTE));
-
-            Date currentSunset = sunriseSunset.getSunset();
-            calendar.setTime(currentSunset); // assigns calendar to given date
-            sunset = SystemHelper.formatTime(calendar.get(Calendar.HOUR_OF_DAY), calendar.get(Calendar.MINUTE));
+        PointType location = SystemHelper.getLocation();
+        double latitude = location.getLatitude().doubleValue();
+        double longitude = location.getLongitude().doubleValue();
+        ZoneId zone = SystemHelper.getZoneId();
+        long epochDay = CompactTime.currentEpochDay();
+        LocalDate today = LocalDate.ofEpochDay(epochDay);
+
+        if (sunTable == null || !sunTable.matches(latitude, longitude, zone, today.getYear())) {
+            sunTable = SunTable.open(latitude, longitude, zone, today.getYear());
+        }
+        int[] minutes = new int[SunEvent.FIXED_COUNT];
+        for (SunEvent event : SunEvent.values()) {
+            if (event.isFixed()) {
+                minutes[event.ordinal()] = sunTable.getMinute(event, today.getDayOfYear() - 1);
+            }
+        }
+        SunSchedule current = schedule.get();
+        if (current == null || !current.hasValues(epochDay, minutes)
+                || !current.getPosition().matches(latitude, longitude, epochDay)) {
+            SunSchedule next = new SunSchedule(current == null ? 1 : current.getVersion() + 1, epochDay, minutes,
+                    SunPosition.fit(latitude, longitude, epochDay));
+            schedule.set(next);
 
             // Log new sunrise/sunset time
-            logger.info("Reinit SystemSunClock, sunrise: {},  sunset: {}.", sunrise, sunset);
+            logger.info("Reinit SystemSunClock, sunrise: {},  sunset: {}.", next.getSunrise(), next.getSunset());
         }
     }
 
     /**
-     * Get the system SunriseSunset instance.
+     * Get the current snapshot of the sun times.
      *
-     * @return the single instance of SunriseSunset.
+     * @return the snapshot.
      */
-    public SunriseSunset getSunriseSunset() {
-        return sunriseSunset;
-    }
-
-    public StringType getSunrise() {
-        return sunrise;
-    }
-
-    public StringType getSunset() {
-        return sunset;
+    public SunSchedule getSchedule() {
+        return schedule.get();
     }
 }
@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.alarmclock.internal;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Listener for {@link ClockManager} ticks, taking the previous and current time as packed values (see
+ * {@link CompactTime#getPacked()}). The {@link ClockManager} calls {@link #onTick(int, int)} directly, without payload
+ * objects. Since it is a BiConsumer as well, it can be registered wherever a generic handler is accepted.
+ *
+ * @author Wim Vissers
+ *
+ */
+@FunctionalInterface
+public interface TickListener extends BiConsumer<CompactTime, CompactTime> {
+
+    /**
+     * Handle a tick.
+     *
+     * @param previous the previous packed time.
+     * @param current the current packed time.
+     */
+    void onTick(int previous, int current);
+
+    @Override
+    default void accept(CompactTime previous, CompactTime current) {
+        onTick(previous.getPacked(), current.getPacked());
+    }
+}
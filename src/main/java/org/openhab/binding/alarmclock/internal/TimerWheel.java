@@ -0,0 +1,233 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.alarmclock.internal;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The singleton TimerWheel is a hashed timing wheel shared by all timers of the binding. Starting and cancelling a
+ * timeout takes constant time, and a single ticker thread advances the wheel, so the number of scheduled jobs does not
+ * grow with the number of running timers. The ticker only runs while there are pending timeouts.
+ *
+ * Tasks are executed on the ticker thread, so they should be short.
+ *
+ * @author Wim Vissers
+ *
+ */
+public class TimerWheel implements Constants {
+
+    private static final TimerWheel INSTANCE = new TimerWheel();
+
+    // The logger instance.
+    private final Logger logger = LoggerFactory.getLogger(TimerWheel.class);
+
+    // The slots of the wheel, each the sentinel of a circular doubly linked list.
+    private final Timeout[] wheel;
+    private final int mask;
+    private final long tickNanos;
+    private final long startNanos;
+
+    // The last tick processed.
+    private long currentTick;
+
+    // The number of pending timeouts.
+    private int pending;
+
+    // The ticker.
+    private ScheduledExecutorService ticker;
+    private ScheduledFuture<?> tickTask;
+
+    /**
+     * Singleton, so private constructor.
+     */
+    private TimerWheel() {
+        wheel = new Timeout[TIMER_WHEEL_SIZE];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Timeout(null, 0);
+        }
+        mask = TIMER_WHEEL_SIZE - 1;
+        tickNanos = TimeUnit.MILLISECONDS.toNanos(TIMER_WHEEL_TICK_MILLIS);
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Schedule a task to run once after the given delay.
+     *
+     * @param task the task to run.
+     * @param delay the delay.
+     * @param unit the unit of the delay.
+     * @return the timeout, which can be cancelled.
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        synchronized (this) {
+            long deadlineNanos = System.nanoTime() - startNanos + unit.toNanos(Math.max(0, delay));
+            if (pending == 0) {
+                // The wheel was idle, skip the ticks that passed meanwhile.
+                currentTick = (System.nanoTime() - startNanos) / tickNanos;
+            }
+            // Round up, but never expire in a tick that has already been processed.
+            long deadlineTick = Math.max(currentTick + 1, (deadlineNanos + tickNanos - 1) / tickNanos);
+            Timeout timeout = new Timeout(task, deadlineTick);
+            timeout.link(wheel[(int) (deadlineTick & mask)]);
+            if (pending++ == 0) {
+                startTicker();
+            }
+            return timeout;
+        }
+    }
+
+    /**
+     * Advance the wheel up to the current time, and run the tasks of the timeouts that expired.
+     */
+    private void tick() {
+        Timeout expired = null;
+        synchronized (this) {
+            long targetTick = (System.nanoTime() - startNanos) / tickNanos;
+            while (currentTick < targetTick) {
+                currentTick++;
+                Timeout sentinel = wheel[(int) (currentTick & mask)];
+                Timeout timeout = sentinel.next;
+                while (timeout != sentinel) {
+                    Timeout next = timeout.next;
+                    if (timeout.deadlineTick <= currentTick) {
+                        timeout.unlink();
+                        pending--;
+                        // Collect in a singly linked list, to run outside the lock.
+                        timeout.next = expired;
+                        expired = timeout;
+                    }
+                    timeout = next;
+                }
+            }
+            if (pending == 0) {
+                stopTicker();
+            }
+        }
+        while (expired != null) {
+            Timeout timeout = expired;
+            expired = timeout.next;
+            timeout.next = null;
+            try {
+                timeout.task.run();
+            } catch (Exception ex) {
+                logger.error("Error executing timer task.", ex);
+            }
+        }
+    }
+
+    /**
+     * Start the ticker thread. Must be called while holding the lock.
+     */
+    private void startTicker() {
+        if (ticker == null) {
+            ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "alarmclock-timerwheel");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (tickTask == null) {
+            tickTask = ticker.scheduleAtFixedRate(this::tick, TIMER_WHEEL_TICK_MILLIS, TIMER_WHEEL_TICK_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stop the ticker until a new timeout is added. Must be called while holding the lock.
+     */
+    private void stopTicker() {
+        if (tickTask != null) {
+            tickTask.cancel(false);
+            tickTask = null;
+        }
+    }
+
+    /**
+     * Cancel all pending timeouts and stop the ticker thread.
+     */
+    public void stop() {
+        synchronized (this) {
+            for (Timeout sentinel : wheel) {
+                while (sentinel.next != sentinel) {
+                    sentinel.next.unlink();
+                }
+            }
+            pending = 0;
+            stopTicker();
+            if (ticker != null) {
+                ticker.shutdownNow();
+                ticker = null;
+            }
+        }
+    }
+
+    /**
+     * Return the singleton instance.
+     *
+     * @return the singleton instance.
+     */
+    public static TimerWheel getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * A pending task in the wheel, a node of the linked list of its slot.
+     *
+     * @author Wim Vissers.
+     *
+     */
+    public class Timeout {
+        private final Runnable task;
+        private final long deadlineTick;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+            prev = this;
+            next = this;
+        }
+
+        private void link(Timeout sentinel) {
+            prev = sentinel.prev;
+            next = sentinel;
+            sentinel.prev.next = this;
+            sentinel.prev = this;
+        }
+
+        private void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+        }
+
+        /**
+         * Cancel the timeout. Has no effect when the timeout already expired or was cancelled.
+         */
+        public void cancel() {
+            synchronized (TimerWheel.this) {
+                if (prev != null) {
+                    unlink();
+                    pending--;
+                    if (pending == 0) {
+                        stopTicker();
+                    }
+                }
+            }
+        }
+    }
+}
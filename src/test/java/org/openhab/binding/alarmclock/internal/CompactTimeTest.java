@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2010-2018 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.alarmclock.internal;
+
+import static org.junit.Assert.*;
+import static org.openhab.binding.alarmclock.internal.Constants.*;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.eclipse.smarthome.core.i18n.TimeZoneProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the conversions of {@link CompactTime} around the zone offset transitions of Europe/Amsterdam in 2024: the
+ * clock moves from 02:00 CET to 03:00 CEST on March 31 and from 03:00 CEST back to 02:00 CET on October 27.
+ *
+ * @author Wim Vissers - Initial contribution
+ */
+public class CompactTimeTest {
+
+    private final TimeZoneProvider timeZoneProvider = () -> ZoneId.of("Europe/Amsterdam");
+
+    @Before
+    public void setUp() {
+        SystemHelper.setTimeZoneProvider(timeZoneProvider);
+    }
+
+    @After
+    public void tearDown() {
+        SystemHelper.unsetTimeZoneProvider(timeZoneProvider);
+    }
+
+    @Test
+    public void nextBoundarySpringForward() {
+        long current = millis("2024-03-31T00:59:00.050Z");
+        assertEquals(millis("2024-03-31T01:00:00Z"), CompactTime.nextBoundary(current, MILLIS_PER_MINUTE));
+        assertEquals(millis("2024-03-31T01:00:00Z"), CompactTime.nextBoundary(current, MILLIS_PER_HOUR));
+        assertEquals(millis("2024-03-31T01:00:00Z"),
+                CompactTime.nextBoundary(millis("2024-03-31T00:00:00.050Z"), MILLIS_PER_HOUR));
+        assertAlwaysLater(millis("2024-03-30T23:00:00Z"));
+    }
+
+    @Test
+    public void nextBoundaryFallBack() {
+        long current = millis("2024-10-27T00:59:00.050Z");
+        assertEquals(millis("2024-10-27T01:00:00Z"), CompactTime.nextBoundary(current, MILLIS_PER_MINUTE));
+        assertEquals(millis("2024-10-27T01:00:00Z"), CompactTime.nextBoundary(current, MILLIS_PER_HOUR));
+        assertEquals(millis("2024-10-27T01:01:00Z"),
+                CompactTime.nextBoundary(millis("2024-10-27T01:00:00.050Z"), MILLIS_PER_MINUTE));
+        assertAlwaysLater(millis("2024-10-26T23:00:00Z"));
+    }
+
+    @Test
+    public void toEpochMillisInGapMovesForward() {
+        assertEquals(millis("2024-03-31T01:30:00Z"), CompactTime.toEpochMillis(localMillis("2024-03-31T02:30")));
+        assertEquals(millis("2024-03-31T00:59:00Z"), CompactTime.toEpochMillis(localMillis("2024-03-31T01:59")));
+        assertEquals(millis("2024-03-31T01:00:00Z"), CompactTime.toEpochMillis(localMillis("2024-03-31T03:00")));
+    }
+
+    @Test
+    public void toEpochMillisInOverlapTakesEarlierInstant() {
+        assertEquals(millis("2024-10-27T00:30:00Z"), CompactTime.toEpochMillis(localMillis("2024-10-27T02:30")));
+        assertEquals(millis("2024-10-27T02:00:00Z"), CompactTime.toEpochMillis(localMillis("2024-10-27T03:00")));
+    }
+
+    @Test
+    public void nextOccurrenceInGapIsNotSkipped() {
+        long midnight = millis("2024-03-30T23:00:00Z");
+        assertEquals(millis("2024-03-31T01:30:00Z"), CompactTime.nextOccurrence(2 * 60 + 30, midnight));
+        assertEquals(millis("2024-03-31T02:00:00Z"), CompactTime.nextOccurrence(4 * 60, midnight));
+    }
+
+    @Test
+    public void nextOccurrenceInOverlapOccursOnce() {
+        long midnight = millis("2024-10-26T22:00:00Z");
+        assertEquals(millis("2024-10-27T00:30:00Z"), CompactTime.nextOccurrence(2 * 60 + 30, midnight));
+        assertEquals(millis("2024-10-28T01:30:00Z"),
+                CompactTime.nextOccurrence(2 * 60 + 30, millis("2024-10-27T01:10:00Z")));
+    }
+
+    /**
+     * Assert the next minute and hour boundaries are later than every minute of the three hours from the given time,
+     * and at most a period later.
+     */
+    private void assertAlwaysLater(long start) {
+        for (long current = start; current < start + 3 * MILLIS_PER_HOUR; current += MILLIS_PER_MINUTE / 2) {
+            long nextMinute = CompactTime.nextBoundary(current, MILLIS_PER_MINUTE);
+            long nextHour = CompactTime.nextBoundary(current, MILLIS_PER_HOUR);
+            assertTrue(nextMinute > current && nextMinute <= current + MILLIS_PER_MINUTE);
+            assertTrue(nextHour > current && nextHour <= current + MILLIS_PER_HOUR);
+        }
+    }
+
+    private static long millis(String instant) {
+        return Instant.parse(instant).toEpochMilli();
+    }
+
+    private static long localMillis(String localTime) {
+        return LocalDateTime.parse(localTime).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}